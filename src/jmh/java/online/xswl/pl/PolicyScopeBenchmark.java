@@ -0,0 +1,67 @@
+package online.xswl.pl;
+
+import online.xswl.pl.Designer.Policy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * what the policy lookup adds to every {@code loggingExecute}
+ *
+ * @author PL
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PolicyScopeBenchmark {
+
+    private static final int LOOKUPS = 1_000;
+
+    private final Policy quiet = Designer.current().withExceptionLoggingConsumer(e -> {});
+
+    private int counter;
+
+    @Benchmark
+    public Policy globalOnly() {
+        return Designer.current();
+    }
+
+    @Benchmark
+    public Policy effectiveOutsideScope() {
+        return PolicyScope.effective();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void effectiveInsideScope(Blackhole bh) {
+        PolicyScope.run(quiet, () -> {
+            for (int i = 0; i < LOOKUPS; i++) {
+                bh.consume(PolicyScope.effective());
+            }
+        });
+    }
+
+    @Benchmark
+    public void loggingExecuteOutsideScope() {
+        Coding.loggingExecute(() -> counter++);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void loggingExecuteInsideScope() {
+        PolicyScope.run(quiet, () -> {
+            for (int i = 0; i < LOOKUPS; i++) {
+                Coding.loggingExecute(() -> counter++);
+            }
+        });
+    }
+
+}
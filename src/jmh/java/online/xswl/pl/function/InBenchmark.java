@@ -0,0 +1,124 @@
+package online.xswl.pl.function;
+
+import online.xswl.pl.utils.Tester;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+
+/**
+ * hashed constant sets against the linear scans of {@link Tester}
+ *
+ * @author PL
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InBenchmark {
+
+    @Param({"20", "200"})
+    private int size;
+
+    private String[] codes;
+
+    private Integer[] boxed;
+
+    private Predicate<String> codeIn;
+
+    private Predicate<Integer> boxedIn;
+
+    private IntPredicate intIn;
+
+    private static final int PROBES = 1024;
+
+    /**
+     * precomputed keys, even ones hit and odd ones miss; the benchmarks only index into them
+     */
+    private String[] stringProbes;
+
+    private Integer[] identityProbes;
+
+    private int[] intProbes;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        codes = new String[size];
+        boxed = new Integer[size];
+        int[] ints = new int[size];
+        for (int i = 0; i < size; i++) {
+            codes[i] = "C" + i * 7;
+            boxed[i] = i * 7;
+            ints[i] = i * 7;
+        }
+        codeIn = Fn.in(codes);
+        boxedIn = Fn.identityIn(boxed);
+        intIn = Fn.intIn(ints);
+
+        stringProbes = new String[PROBES];
+        identityProbes = new Integer[PROBES];
+        intProbes = new int[PROBES];
+        Random random = new Random(42);
+        for (int i = 0; i < PROBES; i++) {
+            int r = random.nextInt(size);
+            boolean hit = (i & 1) == 0;
+            // equal but not the same instance, so the scan cannot win on ==
+            stringProbes[i] = hit ? new String(codes[r]) : "C" + (r * 7 + 1);
+            // outside the Integer cache, a new instance equal to no member
+            identityProbes[i] = hit ? boxed[r] : Integer.valueOf(1_000_000 + r);
+            intProbes[i] = hit ? r * 7 : r * 7 + 1;
+        }
+    }
+
+    private int next() {
+        return cursor = cursor + 1 & PROBES - 1;
+    }
+
+    @Benchmark
+    public boolean stringScan() {
+        return Tester.anyMatch(stringProbes[next()], codes);
+    }
+
+    @Benchmark
+    public boolean stringHashed() {
+        return codeIn.test(stringProbes[next()]);
+    }
+
+    @Benchmark
+    public boolean identityScan() {
+        return Tester.anyIs(identityProbes[next()], boxed);
+    }
+
+    @Benchmark
+    public boolean identityHashed() {
+        return boxedIn.test(identityProbes[next()]);
+    }
+
+    @Benchmark
+    public boolean intScan() {
+        int probe = intProbes[next()];
+        for (Integer one : boxed) {
+            if (one == probe) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean intHashed() {
+        return intIn.test(intProbes[next()]);
+    }
+
+}
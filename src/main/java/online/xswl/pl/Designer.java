@@ -2,12 +2,21 @@ package online.xswl.pl;
 
 import online.xswl.pl.utils.ExceptionBarrier;
 import online.xswl.pl.utils.ExceptionBarrier.ExceptionLoggingConsumer;
+import online.xswl.pl.utils.LazyStackTrace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.UnaryOperator;
+
 
 /**
  * configure some policy
+ * <p>all settings live in an immutable {@link Policy} snapshot, published through one volatile reference;
+ * every change builds a new snapshot (copy-on-write), so readers never see a half-applied change</p>
  *
  * @author PL
  */
@@ -15,21 +24,201 @@ public class Designer {
 
     private Designer() {}
 
+    private static final int DEFAULT_STACK_DEPTH = 32;
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
     protected static final Designer instance = new Designer();
 
-    private final Logger log = LoggerFactory.getLogger(ExceptionBarrier.class);
+    private static final AtomicReferenceFieldUpdater<Designer, Policy> POLICY =
+            AtomicReferenceFieldUpdater.newUpdater(Designer.class, Policy.class, "policy");
+
+    private volatile Policy policy = new Policy(Designer::defaultLogging, null, DEFAULT_STACK_DEPTH, false, DEFAULT_TIMEOUT);
+
+    /**
+     * SLF4J is looked up the first time an exception is really logged, not when Coding is first touched
+     */
+    private static final class LogHolder {
+        static final Logger log = LoggerFactory.getLogger(ExceptionBarrier.class);
+    }
+
+    /**
+     * the throwable goes to SLF4J as is; with {@link Policy#isLazyStackTrace()} a trimmed stack is rendered by the appender
+     * instead, only if the warning is really written
+     */
+    private static void defaultLogging(Throwable e) {
+        Logger log = LogHolder.log;
+        if (log.isWarnEnabled()) {
+            Policy policy = PolicyScope.effective();
+            if (policy.isLazyStackTrace()) {
+                log.warn("该异常已被Safer暂时忽略，请及时处理: {}", LazyStackTrace.of(e, policy.getStackDepth()));
+            } else {
+                log.warn("该异常已被Safer暂时忽略，请及时处理", e);
+            }
+        }
+    }
 
+    /**
+     * the policy currently in effect, one volatile read
+     */
+    public static Policy current() {
+        return instance.policy;
+    }
 
-    private ExceptionLoggingConsumer exceptionLoggingConsumer = e -> log.warn("该异常已被Safer暂时忽略，请及时处理", e);
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * replace the whole policy at once
+     */
+    public Designer setPolicy(Policy policy) {
+        assert policy != null;
+        this.policy = policy;
+        return this;
+    }
+
+    /**
+     * copy-on-write update, retried until no other writer interleaves
+     * <pre>
+     *     Coding.design().update(p -> p.withExecutor(myPool));
+     * </pre>
+     */
+    public Designer update(UnaryOperator<Policy> change) {
+        assert change != null;
+        Policy prev, next;
+        do {
+            prev = policy;
+            next = change.apply(prev);
+            assert next != null;
+        } while (!POLICY.compareAndSet(this, prev, next));
+        return this;
+    }
 
     public Designer setExceptionLoggingConsumer(ExceptionLoggingConsumer exceptionLoggingConsumer) {
         assert exceptionLoggingConsumer != null;
-        this.exceptionLoggingConsumer = exceptionLoggingConsumer;
-        return this;
+        return update(p -> p.withExceptionLoggingConsumer(exceptionLoggingConsumer));
     }
 
     public ExceptionLoggingConsumer getExceptionLoggingConsumer() {
-                                                                return exceptionLoggingConsumer;
-                                                                                                }
+        return policy.getExceptionLoggingConsumer();
+    }
+
+    public Designer setExecutor(Executor executor) {
+        assert executor != null;
+        return update(p -> p.withExecutor(executor));
+    }
+
+    public Executor getExecutor() {
+        return policy.getExecutor();
+    }
+
+    public Designer setStackDepth(int stackDepth) {
+        return update(p -> p.withStackDepth(stackDepth));
+    }
+
+    public int getStackDepth() {
+        return policy.getStackDepth();
+    }
+
+    public Designer setLazyStackTrace(boolean lazyStackTrace) {
+        return update(p -> p.withLazyStackTrace(lazyStackTrace));
+    }
+
+    public boolean isLazyStackTrace() {
+        return policy.isLazyStackTrace();
+    }
+
+    public Designer setTimeout(Duration timeout) {
+        assert timeout != null;
+        return update(p -> p.withTimeout(timeout));
+    }
+
+    public Duration getTimeout() {
+        return policy.getTimeout();
+    }
+
+
+    /**
+     * immutable snapshot of all settings; derive a changed copy with the {@code with*} methods,
+     * a derived copy can be handed to one thread or one scope without touching the global one
+     */
+    public static final class Policy {
+
+        private final ExceptionLoggingConsumer exceptionLoggingConsumer;
+
+        private final Executor executor;
+
+        private final int stackDepth;
+
+        private final boolean lazyStackTrace;
+
+        private final Duration timeout;
+
+        private Policy(ExceptionLoggingConsumer exceptionLoggingConsumer, Executor executor, int stackDepth, boolean lazyStackTrace,
+                       Duration timeout) {
+            this.exceptionLoggingConsumer = exceptionLoggingConsumer;
+            this.executor = executor;
+            this.stackDepth = stackDepth;
+            this.lazyStackTrace = lazyStackTrace;
+            this.timeout = timeout;
+        }
+
+        public ExceptionLoggingConsumer getExceptionLoggingConsumer() {
+            return exceptionLoggingConsumer;
+        }
+
+        /**
+         * where the async helpers run their work, the common pool unless set
+         */
+        public Executor getExecutor() {
+            return executor != null ? executor : ForkJoinPool.commonPool();
+        }
+
+        /**
+         * how many frames of each throwable the default logging renders, when it renders them lazily
+         */
+        public int getStackDepth() {
+            return stackDepth;
+        }
+
+        /**
+         * whether the default logging hands SLF4J a {@link LazyStackTrace} instead of the throwable, off unless set
+         */
+        public boolean isLazyStackTrace() {
+            return lazyStackTrace;
+        }
+
+        /**
+         * how long a helper that waits on the executor (racing, hedging, batch loading) waits at most, 30 seconds unless set
+         */
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public Policy withExceptionLoggingConsumer(ExceptionLoggingConsumer exceptionLoggingConsumer) {
+            assert exceptionLoggingConsumer != null;
+            return new Policy(exceptionLoggingConsumer, executor, stackDepth, lazyStackTrace, timeout);
+        }
+
+        public Policy withExecutor(Executor executor) {
+            assert executor != null;
+            return new Policy(exceptionLoggingConsumer, executor, stackDepth, lazyStackTrace, timeout);
+        }
+
+        public Policy withStackDepth(int stackDepth) {
+            assert stackDepth >= 0;
+            return new Policy(exceptionLoggingConsumer, executor, stackDepth, lazyStackTrace, timeout);
+        }
+
+        public Policy withLazyStackTrace(boolean lazyStackTrace) {
+            return new Policy(exceptionLoggingConsumer, executor, stackDepth, lazyStackTrace, timeout);
+        }
+
+        public Policy withTimeout(Duration timeout) {
+            assert timeout != null && !timeout.isNegative();
+            return new Policy(exceptionLoggingConsumer, executor, stackDepth, lazyStackTrace, timeout);
+        }
+    }
 
 }
@@ -0,0 +1,186 @@
+package online.xswl.pl;
+
+import online.xswl.pl.Designer.Policy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+
+/**
+ * bind a {@link Policy} to a block of code instead of changing the global {@link Designer}
+ * <pre>
+ *     Policy quiet = Designer.current().withExceptionLoggingConsumer(e -> {});
+ *     PolicyScope.run(quiet, () -> Coding.loggingExecute(this::handle)); // nothing is logged
+ *
+ *     // carry the caller's policy over an executor hop
+ *     CompletableFuture.supplyAsync(loader, PolicyScope.propagating(pool));
+ * </pre>
+ * <p>uses {@code java.lang.ScopedValue} when the running JDK offers it, otherwise falls back to a
+ * ThreadLocal that is always restored (removed when nothing was bound before), so pooled threads never keep a stale policy</p>
+ *
+ * @author PL
+ */
+public final class PolicyScope {
+
+    private PolicyScope() {}
+
+    /**
+     * flipped once, when the first scope is opened; until then {@link #current()} costs a single volatile read
+     */
+    private static volatile boolean used;
+
+
+    /**
+     * the policy bound to the running scope, or null if none
+     */
+    public static Policy current() {
+        if (!used) {
+            return null;
+        }
+        return Scoped.AVAILABLE ? Scoped.get() : Local.HOLDER.get();
+    }
+
+    /**
+     * the scoped policy if any, else the global one
+     */
+    public static Policy effective() {
+        Policy scoped = current();
+        return scoped != null ? scoped : Designer.current();
+    }
+
+    /**
+     * run the logic with the policy bound, the previous binding comes back afterwards
+     */
+    public static void run(Policy policy, Runnable runnable) {
+        assert policy != null && runnable != null;
+        if (!used) {
+            used = true;
+        }
+        if (Scoped.AVAILABLE) {
+            Scoped.run(policy, runnable);
+        } else {
+            Local.run(policy, runnable);
+        }
+    }
+
+    /**
+     * get data with the policy bound
+     */
+    public static <T> T get(Policy policy, Supplier<T> supplier) {
+        assert supplier != null;
+        Object[] result = new Object[1];
+        run(policy, () -> result[0] = supplier.get());
+        @SuppressWarnings("unchecked")
+        T t = (T) result[0];
+        return t;
+    }
+
+    /**
+     * capture the caller's policy now, rebind it wherever the runnable ends up running
+     */
+    public static Runnable wrap(Runnable runnable) {
+        Policy captured = current();
+        return captured == null ? runnable : () -> run(captured, runnable);
+    }
+
+    /**
+     * @see #wrap(Runnable)
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        Policy captured = current();
+        return captured == null ? supplier : () -> get(captured, supplier);
+    }
+
+    /**
+     * an executor whose tasks inherit the policy of the thread that submitted them,
+     * hand it to {@code CompletableFuture.*Async} to keep the policy across hops
+     */
+    public static Executor propagating(Executor executor) {
+        assert executor != null;
+        return command -> executor.execute(wrap(command));
+    }
+
+
+    /**
+     * java.lang.ScopedValue, looked up reflectively so the library still runs on older JDKs
+     */
+    private static final class Scoped {
+
+        static final boolean AVAILABLE;
+
+        private static final MethodHandle IS_BOUND;
+
+        private static final MethodHandle GET;
+
+        private static final MethodHandle RUN_WHERE;
+
+        static {
+            MethodHandle isBound = null, get = null, runWhere = null;
+            boolean available = false;
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Class<?> scopedValue = Class.forName("java.lang.ScopedValue");
+                Class<?> carrier = Class.forName("java.lang.ScopedValue$Carrier");
+                Object key = scopedValue.getMethod("newInstance").invoke(null);
+                isBound = lookup.findVirtual(scopedValue, "isBound", MethodType.methodType(boolean.class)).bindTo(key);
+                get = lookup.findVirtual(scopedValue, "get", MethodType.methodType(Object.class)).bindTo(key)
+                        .asType(MethodType.methodType(Policy.class));
+                MethodHandle where = MethodHandles.insertArguments(
+                        lookup.findStatic(scopedValue, "where", MethodType.methodType(carrier, scopedValue, Object.class)), 0, key);
+                MethodHandle run = lookup.findVirtual(carrier, "run", MethodType.methodType(void.class, Runnable.class));
+                runWhere = MethodHandles.filterArguments(run, 0, where)
+                        .asType(MethodType.methodType(void.class, Policy.class, Runnable.class));
+                // preview builds refuse here when --enable-preview is missing
+                runWhere.invokeExact((Policy) null, (Runnable) () -> {});
+                available = true;
+            } catch (Throwable ignored) {
+                // no ScopedValue on this JDK
+            }
+            AVAILABLE = available;
+            IS_BOUND = isBound;
+            GET = get;
+            RUN_WHERE = runWhere;
+        }
+
+        static Policy get() {
+            try {
+                return (boolean) IS_BOUND.invokeExact() ? (Policy) GET.invokeExact() : null;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        static void run(Policy policy, Runnable runnable) {
+            try {
+                RUN_WHERE.invokeExact(policy, runnable);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static final class Local {
+
+        static final ThreadLocal<Policy> HOLDER = new ThreadLocal<>();
+
+        static void run(Policy policy, Runnable runnable) {
+            Policy prev = HOLDER.get();
+            HOLDER.set(policy);
+            try {
+                runnable.run();
+            } finally {
+                if (prev == null) {
+                    HOLDER.remove();
+                } else {
+                    HOLDER.set(prev);
+                }
+            }
+        }
+    }
+
+}
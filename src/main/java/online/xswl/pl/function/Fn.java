@@ -3,6 +3,8 @@ package online.xswl.pl.function;
 import online.xswl.pl.utils.Tester;
 
 import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
 import java.util.function.Predicate;
 
 
@@ -23,4 +25,43 @@ public abstract class Fn {
     public static <T, F> Predicate<T> anyFieldMatch(Predicate<F> test, Function<T, F>... mappers) {
         return t -> Tester.anyMatch(test, stream(mappers).map(mapper -> mapper.apply(t))::iterator);
     }
+
+    /**
+     * membership in a fixed set of constants, hashed once instead of scanned on every call
+     * <pre>
+     *     private static final Predicate&lt;String&gt; ASIA = Fn.in("CN", "JP", "KR", "SG");
+     *     ASIA.test(country);
+     * </pre>
+     * <p>same answers as {@link Tester#anyMatch(Object, Object[])}, null is a member only if it was given</p>
+     *
+     * @throws IllegalArgumentException on null array
+     */
+    @SafeVarargs
+    public static <T> Predicate<T> in(T... values) {
+        return In.of(values, false);
+    }
+
+    /**
+     * like {@link #in(Object[])} but compares with {@code ==}, same answers as {@link Tester#anyIs(Object, Object[])}
+     *
+     * @throws IllegalArgumentException on null array
+     */
+    @SafeVarargs
+    public static <T> Predicate<T> identityIn(T... values) {
+        return In.of(values, true);
+    }
+
+    /**
+     * @see #in(Object[])
+     */
+    public static IntPredicate intIn(int... values) {
+        return In.ofInts(values);
+    }
+
+    /**
+     * @see #in(Object[])
+     */
+    public static LongPredicate longIn(long... values) {
+        return In.ofLongs(values);
+    }
 }
@@ -0,0 +1,282 @@
+package online.xswl.pl.function;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+
+/**
+ * immutable constant sets behind {@link Fn#in(Object[])} and friends
+ * <p>open addressing with linear probing at a load factor of at most 1/2, built once; a membership test allocates nothing.
+ * small all-String sets get a collision-free (perfect) multiplier instead, so a test is one hash, one slot, one equals</p>
+ *
+ * @author PL
+ */
+final class In {
+
+    private In() {}
+
+    private static final int GOLDEN = 0x9E3779B9;
+
+    private static final int PERFECT_MAX_SIZE = 64;
+
+    private static final int PERFECT_TRIES = 256;
+
+    private static int tableSize(int n) {
+        return Math.max(2, Integer.highestOneBit(Math.max(1, n) * 2 - 1) << 1);
+    }
+
+    private static int mix(int h) {
+        h *= GOLDEN;
+        return h ^ h >>> 16;
+    }
+
+    private static int mix(long h) {
+        return mix((int) (h ^ h >>> 32));
+    }
+
+    static <T> Predicate<T> of(T[] values, boolean identity) {
+        if (values == null) {
+            throw new IllegalArgumentException();
+        }
+        if (!identity) {
+            Predicate<T> perfect = PerfectStrings.tryOf(values);
+            if (perfect != null) {
+                return perfect;
+            }
+        }
+        return new Hashed<>(values, identity);
+    }
+
+    static IntPredicate ofInts(int[] values) {
+        if (values == null) {
+            throw new IllegalArgumentException();
+        }
+        return new Ints(values);
+    }
+
+    static LongPredicate ofLongs(long[] values) {
+        if (values == null) {
+            throw new IllegalArgumentException();
+        }
+        return new Longs(values);
+    }
+
+
+    static final class Hashed<T> implements Predicate<T> {
+
+        private final Object[] table;
+
+        private final int mask;
+
+        private final boolean identity;
+
+        private final boolean hasNull;
+
+        Hashed(Object[] values, boolean identity) {
+            this.identity = identity;
+            this.table = new Object[tableSize(values.length)];
+            this.mask = table.length - 1;
+            boolean hasNull = false;
+            for (Object value : values) {
+                if (value == null) {
+                    hasNull = true;
+                } else if (!test(value)) {
+                    int i = slot(value);
+                    while (table[i] != null) {
+                        i = i + 1 & mask;
+                    }
+                    table[i] = value;
+                }
+            }
+            this.hasNull = hasNull;
+        }
+
+        private int slot(Object o) {
+            return mix(identity ? System.identityHashCode(o) : o.hashCode()) & mask;
+        }
+
+        @Override
+        public boolean test(Object o) {
+            if (o == null) {
+                return hasNull;
+            }
+            for (int i = slot(o); ; i = i + 1 & mask) {
+                Object candidate = table[i];
+                if (candidate == null) {
+                    return false;
+                }
+                if (candidate == o || !identity && candidate.equals(o)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * index = (hashCode * multiplier) >>> shift, with a multiplier chosen so that no two constants share a slot
+     */
+    static final class PerfectStrings<T> implements Predicate<T> {
+
+        private final String[] table;
+
+        private final int multiplier;
+
+        private final int shift;
+
+        private final boolean hasNull;
+
+        private PerfectStrings(String[] table, int multiplier, int shift, boolean hasNull) {
+            this.table = table;
+            this.multiplier = multiplier;
+            this.shift = shift;
+            this.hasNull = hasNull;
+        }
+
+        static <T> PerfectStrings<T> tryOf(T[] values) {
+            boolean hasNull = false;
+            String[] strings = new String[values.length];
+            int n = 0;
+            for (T value : values) {
+                if (value == null) {
+                    hasNull = true;
+                } else if (value instanceof String) {
+                    strings[n++] = (String) value;
+                } else {
+                    return null;
+                }
+            }
+            strings = Arrays.stream(strings, 0, n).distinct().toArray(String[]::new);
+            if (strings.length > PERFECT_MAX_SIZE) {
+                return null;
+            }
+            int bits = Integer.numberOfTrailingZeros(tableSize(strings.length));
+            // a slightly sparser table makes a collision-free multiplier much easier to find
+            for (int size = bits; size <= bits + 2; size++) {
+                int multiplier = GOLDEN;
+                for (int t = 0; t < PERFECT_TRIES; t++, multiplier += 0x6A09E667) {
+                    String[] table = place(strings, multiplier | 1, size);
+                    if (table != null) {
+                        return new PerfectStrings<>(table, multiplier | 1, 32 - size, hasNull);
+                    }
+                }
+            }
+            return null;
+        }
+
+        private static String[] place(String[] strings, int multiplier, int bits) {
+            String[] table = new String[1 << bits];
+            for (String s : strings) {
+                int i = s.hashCode() * multiplier >>> 32 - bits;
+                if (table[i] != null) {
+                    return null;
+                }
+                table[i] = s;
+            }
+            return table;
+        }
+
+        @Override
+        public boolean test(T o) {
+            if (o == null) {
+                return hasNull;
+            }
+            String candidate = table[o.hashCode() * multiplier >>> shift];
+            return candidate != null && candidate.equals(o);
+        }
+    }
+
+    /**
+     * 0 marks an empty slot, whether 0 itself is a member is kept aside
+     */
+    static final class Ints implements IntPredicate {
+
+        private final int[] table;
+
+        private final int mask;
+
+        private final boolean hasZero;
+
+        Ints(int[] values) {
+            this.table = new int[tableSize(values.length)];
+            this.mask = table.length - 1;
+            boolean hasZero = false;
+            for (int value : values) {
+                if (value == 0) {
+                    hasZero = true;
+                } else if (!test(value)) {
+                    int i = mix(value) & mask;
+                    while (table[i] != 0) {
+                        i = i + 1 & mask;
+                    }
+                    table[i] = value;
+                }
+            }
+            this.hasZero = hasZero;
+        }
+
+        @Override
+        public boolean test(int value) {
+            if (value == 0) {
+                return hasZero;
+            }
+            for (int i = mix(value) & mask; ; i = i + 1 & mask) {
+                int candidate = table[i];
+                if (candidate == value) {
+                    return true;
+                }
+                if (candidate == 0) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * @see Ints
+     */
+    static final class Longs implements LongPredicate {
+
+        private final long[] table;
+
+        private final int mask;
+
+        private final boolean hasZero;
+
+        Longs(long[] values) {
+            this.table = new long[tableSize(values.length)];
+            this.mask = table.length - 1;
+            boolean hasZero = false;
+            for (long value : values) {
+                if (value == 0) {
+                    hasZero = true;
+                } else if (!test(value)) {
+                    int i = mix(value) & mask;
+                    while (table[i] != 0) {
+                        i = i + 1 & mask;
+                    }
+                    table[i] = value;
+                }
+            }
+            this.hasZero = hasZero;
+        }
+
+        @Override
+        public boolean test(long value) {
+            if (value == 0) {
+                return hasZero;
+            }
+            for (int i = mix(value) & mask; ; i = i + 1 & mask) {
+                long candidate = table[i];
+                if (candidate == value) {
+                    return true;
+                }
+                if (candidate == 0) {
+                    return false;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+package online.xswl.pl.utils;
+
+import online.xswl.pl.Designer.Policy;
+import online.xswl.pl.PolicyScope;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+
+/**
+ * turn many single-key loads arriving together into one batched call
+ * <pre>
+ *     private final BatchLoader&lt;Long, User&gt; users = Coding.batchLoader(ids -> repo.findByIds(ids));
+ *     ...
+ *     User user = users.load(id); // instead of Coding.loggingGetOrNull(() -> repo.findById(id))
+ * </pre>
+ * <p>keys are collected for at most {@code window} after the first one, or until {@code maxBatchSize} distinct keys are waiting,
+ * then the batch function runs once on the policy executor. a key already waiting or being loaded joins the existing load
+ * instead of being asked for again; every caller gets a future of its own, cancelling or completing it leaves the load and
+ * the other callers alone</p>
+ * <p>failures are handled like {@link ExceptionBarrier#loggingGetOrNull}: a batch call that throws, or that the executor
+ * rejects, is logged once and every caller of that batch gets null; a key missing from the returned map gets null too.
+ * {@link #load} waits at most the policy's timeout. the batch call runs with the {@link PolicyScope} of the caller whose key
+ * opened (or filled) the batch</p>
+ *
+ * @author PL
+ */
+public final class BatchLoader<K, V> {
+
+    private static final Duration DEFAULT_WINDOW = Duration.ofMillis(2);
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    private final Function<Set<K>, Map<K, V>> batch;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    /**
+     * every key waiting or being loaded, for joining identical requests
+     */
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * keys of the batch still collecting, guarded by this
+     */
+    private Map<K, CompletableFuture<V>> collecting;
+
+    private BatchLoader(Function<Set<K>, Map<K, V>> batch, long windowNanos, int maxBatchSize) {
+        this.batch = batch;
+        this.windowNanos = windowNanos;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public static <K, V> BatchLoader<K, V> of(Function<Set<K>, Map<K, V>> batch) {
+        return of(batch, DEFAULT_WINDOW, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param batch        load many keys at once, keys it has no value for may be left out of the map
+     * @param window       how long to wait for more keys after the first one
+     * @param maxBatchSize dispatch early once this many distinct keys are waiting
+     */
+    public static <K, V> BatchLoader<K, V> of(Function<Set<K>, Map<K, V>> batch, Duration window, int maxBatchSize) {
+        if (batch == null || window == null || window.isNegative() || maxBatchSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return new BatchLoader<>(batch, window.toNanos(), maxBatchSize);
+    }
+
+    /**
+     * wait for the value of one key
+     *
+     * @return the value, or null if the batch has none for it, failed or took longer than the policy's timeout (logged)
+     */
+    public V load(K key) {
+        CompletableFuture<V> future = loadAsync(key);
+        Policy policy = ExceptionBarrier.manager();
+        try {
+            return future.get(policy.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            policy.getExceptionLoggingConsumer().logging(e);
+        } catch (ExecutionException | TimeoutException | CancellationException e) {
+            // the load goes on for the other callers of the key
+            policy.getExceptionLoggingConsumer().logging(e);
+        }
+        return null;
+    }
+
+    /**
+     * @return completes with the value, or with null if the batch has none for it or failed (logged once per batch);
+     * a copy of the shared load, so what the caller does with it stays with the caller
+     */
+    public CompletableFuture<V> loadAsync(K key) {
+        if (key == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<V> joined = inFlight.get(key);
+        if (joined != null) {
+            return joined.copy();
+        }
+        Map<K, CompletableFuture<V>> full = null;
+        CompletableFuture<V> future;
+        synchronized (this) {
+            // another thread may have queued the key since the look above
+            joined = inFlight.get(key);
+            if (joined != null) {
+                return joined.copy();
+            }
+            future = new CompletableFuture<>();
+            inFlight.put(key, future);
+            if (collecting == null) {
+                Map<K, CompletableFuture<V>> opened = collecting = new LinkedHashMap<>();
+                Executor executor = ExceptionBarrier.manager().getExecutor();
+                // only the hand-over waits for the window, submit deals with a rejecting executor
+                CompletableFuture.delayedExecutor(windowNanos, TimeUnit.NANOSECONDS, Runnable::run)
+                        .execute(PolicyScope.wrap(() -> submit(executor, take(opened))));
+            }
+            collecting.put(key, future);
+            if (collecting.size() >= maxBatchSize) {
+                full = collecting;
+                collecting = null;
+            }
+        }
+        if (full != null) {
+            submit(ExceptionBarrier.manager().getExecutor(), full);
+        }
+        return future.copy();
+    }
+
+    /**
+     * close the batch when the window ends, unless it was already sent for being full
+     */
+    private synchronized Map<K, CompletableFuture<V>> take(Map<K, CompletableFuture<V>> opened) {
+        if (collecting != opened) {
+            return null;
+        }
+        collecting = null;
+        return opened;
+    }
+
+    private void submit(Executor executor, Map<K, CompletableFuture<V>> keys) {
+        if (keys == null) {
+            return;
+        }
+        try {
+            executor.execute(PolicyScope.wrap(() -> dispatch(keys)));
+        } catch (RuntimeException e) {
+            // e.g. RejectedExecutionException from a saturated or shut down pool
+            ExceptionBarrier.manager().getExceptionLoggingConsumer().logging(e);
+            complete(keys, null);
+        }
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> keys) {
+        complete(keys, ExceptionBarrier.loggingGetOrNull(() -> batch.apply(Collections.unmodifiableSet(keys.keySet()))));
+    }
+
+    /**
+     * hand out the values, null for every key if values is null; the keys can be asked for again afterwards
+     */
+    private void complete(Map<K, CompletableFuture<V>> keys, Map<K, V> values) {
+        for (Map.Entry<K, CompletableFuture<V>> entry : keys.entrySet()) {
+            inFlight.remove(entry.getKey(), entry.getValue());
+            entry.getValue().complete(values != null ? values.get(entry.getKey()) : null);
+        }
+    }
+
+}
@@ -1,7 +1,11 @@
 package online.xswl.pl.utils;
 
 
+import online.xswl.pl.Designer.Policy;
+import online.xswl.pl.PolicyScope;
+
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -36,6 +40,20 @@ public abstract class ExceptionBarrier extends Transformer {
         void logging(Throwable ex);
     }
 
+    /**
+     * 当前生效的策略：优先取{@link PolicyScope}绑定的，否则取全局的；从未开启过作用域时只有一次volatile读
+     */
+    protected static Policy manager() {
+        return PolicyScope.effective();
+    }
+
+    /**
+     * 交给当前策略的日志函数；策略只在真的发生异常时才去取，没有异常的调用不触碰Designer和日志框架
+     */
+    private static void logException(Throwable ex) {
+        manager().getExceptionLoggingConsumer().logging(ex);
+    }
+
     /**
      * 安全执行一段逻辑
      *
@@ -112,7 +130,7 @@ public abstract class ExceptionBarrier extends Transformer {
      * @param runnableEX 执行的逻辑
      */
     public static void loggingExecute(RunnableEX<?> runnableEX) {
-        execute(runnableEX, manager().exceptionLoggingConsumer::logging);
+        execute(runnableEX, ExceptionBarrier::logException);
     }
 
     /**
@@ -134,7 +152,7 @@ public abstract class ExceptionBarrier extends Transformer {
     }
 
     public static Runnable loggingRunnable(RunnableEX<?> runnableEX) {
-        return () -> execute(runnableEX, manager().exceptionLoggingConsumer::logging);
+        return () -> execute(runnableEX, ExceptionBarrier::logException);
     }
 
     public static Runnable silentRunnable(RunnableEX<?> runnableEX) {
@@ -186,11 +204,11 @@ public abstract class ExceptionBarrier extends Transformer {
     }
 
     public static <T> Optional<T> loggingGetOpt(SupplierEX<T, ?> supplierEX) {
-        return getOpt(supplierEX, manager().exceptionLoggingConsumer::logging);
+        return getOpt(supplierEX, ExceptionBarrier::logException);
     }
 
     public static <T> Opt<T> loggingGetOpt_(SupplierEX<T, ?> supplierEX) {
-        return getOpt_(supplierEX, manager().exceptionLoggingConsumer::logging);
+        return getOpt_(supplierEX, ExceptionBarrier::logException);
     }
 
     /**
@@ -257,6 +275,70 @@ public abstract class ExceptionBarrier extends Transformer {
         return () -> getOrElse(supplierEX, null, WrappedException::wrapThrow);
     }
 
+    /**
+     * 同时从多处获取数据，取最先成功的那个，其余的取消
+     * <pre>
+     *     User user = firstSuccess(() -> replicaA.find(id), () -> replicaB.find(id));
+     * </pre>
+     *
+     * @param suppliers 获取数据的多种方式，在当前策略的executor上并发执行，沿用调用方的{@link PolicyScope}；executor拒绝执行的算作失败
+     * @param <T>       数据类型
+     * @return 最先成功的结果；全部失败时返回null，所有异常合并成一个（其余作为suppressed）交给日志函数；
+     * 超过策略的超时时间（{@link Policy#getTimeout()}）仍无结果时，取消全部并返回null，记录一个TimeoutException
+     */
+    @SafeVarargs
+    public static <T> T firstSuccess(SupplierEX<T, ?>... suppliers) {
+        return Racing.race(suppliers, 0);
+    }
+
+    /**
+     * 对冲请求：如果第一次获取在delay内还没有结束，再发起一次，取最先成功的那个，另一个取消
+     *
+     * @param supplierEX 获取数据的函数，可能被执行两次
+     * @param delay      发起备份请求前等待的时间
+     * @param <T>        数据类型
+     * @return 最先成功的结果；两次都失败或超过策略的超时时间时返回null并记录日志
+     * @see #hedger(double, Duration)
+     */
+    public static <T> T hedged(SupplierEX<T, ?> supplierEX, Duration delay) {
+        if (supplierEX == null || delay == null) {
+            throw new IllegalArgumentException();
+        }
+        return Racing.hedge(supplierEX, supplierEX, delay.toNanos());
+    }
+
+    /**
+     * 按最近延迟的百分位自动调整等待时间的对冲请求
+     *
+     * @see Hedger
+     */
+    public static Hedger hedger(double percentile, Duration initialDelay) {
+        return Hedger.of(percentile, initialDelay);
+    }
+
+    /**
+     * 合并同时到达的单个key的查询，一次批量获取
+     * <pre>
+     *     BatchLoader&lt;Long, User&gt; users = batchLoader(ids -> repo.findByIds(ids));
+     *     User user = users.load(id);
+     * </pre>
+     *
+     * @param batch 批量获取数据的函数，失败时记录日志，这一批的每个调用者都得到null
+     * @see BatchLoader
+     */
+    public static <K, V> BatchLoader<K, V> batchLoader(Function<Set<K>, Map<K, V>> batch) {
+        return BatchLoader.of(batch);
+    }
+
+    /**
+     * @param window       收到第一个key之后最多等待多久
+     * @param maxBatchSize 攒够这么多不同的key就立即发出
+     * @see #batchLoader(Function)
+     */
+    public static <K, V> BatchLoader<K, V> batchLoader(Function<Set<K>, Map<K, V>> batch, Duration window, int maxBatchSize) {
+        return BatchLoader.of(batch, window, maxBatchSize);
+    }
+
     /**
      * @see #loggingGetOrElseGet(SupplierEX, Supplier)
      */
@@ -654,6 +736,43 @@ public abstract class ExceptionBarrier extends Transformer {
         return silentGetOrNull(() -> s != null ? then.apply((T) s) : null);
     }
 
+    /**
+     * 先检查类型再强转并执行，类型不符时不抛异常也不打印日志
+     *
+     * @param s    原数据
+     * @param type 强转的目标类型
+     * @param then 强转后执行的动作，其中发生的异常会打印日志
+     * @param <T>  强转的目标类型
+     * @param <R>  执行的结果
+     * @return 如果s为null或类型不符，返回null
+     */
+    public static <T, R> R castThen(Object s, Class<T> type, Function<? super T, R> then) {
+        return type.isInstance(s) ? loggingGetOrNull(() -> then.apply(type.cast(s))) : null;
+    }
+
+    /**
+     * 先检查类型再强转并执行，类型不符时不抛异常也不打印日志
+     *
+     * @param s    原数据
+     * @param type 强转的目标类型
+     * @param then 强转后执行的动作，其中发生的异常会被忽略
+     * @param <T>  强转的目标类型
+     * @param <R>  执行的结果
+     * @return 如果s为null或类型不符，返回null
+     */
+    public static <T, R> R castOkThen(Object s, Class<T> type, Function<? super T, R> then) {
+        return type.isInstance(s) ? silentGetOrNull(() -> then.apply(type.cast(s))) : null;
+    }
+
+    /**
+     * 按对象的实际类型分发到对应的处理函数；每个TypeSwitch自带缓存，应构建一次后复用（如存为静态常量），不要每次调用都构建
+     *
+     * @see TypeSwitch
+     */
+    public static <R> TypeSwitch.Builder<R> typeSwitch() {
+        return TypeSwitch.builder();
+    }
+
 
 
 }
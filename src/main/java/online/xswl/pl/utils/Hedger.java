@@ -0,0 +1,98 @@
+package online.xswl.pl.utils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * hedged requests with a delay that follows the observed latency
+ * <pre>
+ *     private final Hedger hedger = Coding.hedger(0.95, Duration.ofMillis(50));
+ *     ...
+ *     User user = hedger.get(() -> replica.findUser(id));
+ * </pre>
+ * <p>a backup attempt starts when the first one has been running longer than the given percentile of recent primary attempts,
+ * each timed on its own (one cut short by a winning backup counts with the time it had run); until enough calls have been seen
+ * the initial delay is used</p>
+ *
+ * @author PL
+ */
+public final class Hedger {
+
+    private static final int WINDOW = 256;
+
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final double percentile;
+
+    private final AtomicLongArray latencies = new AtomicLongArray(WINDOW);
+
+    private final AtomicInteger samples = new AtomicInteger();
+
+    private volatile long delayNanos;
+
+    private Hedger(double percentile, long initialDelayNanos) {
+        this.percentile = percentile;
+        this.delayNanos = initialDelayNanos;
+    }
+
+    /**
+     * @param percentile   e.g. 0.95: hedge the slowest 5%
+     * @param initialDelay used until {@value #RECOMPUTE_EVERY} calls have been measured
+     */
+    public static Hedger of(double percentile, Duration initialDelay) {
+        if (percentile <= 0 || percentile >= 1 || initialDelay == null || initialDelay.isNegative()) {
+            throw new IllegalArgumentException();
+        }
+        return new Hedger(percentile, initialDelay.toNanos());
+    }
+
+    /**
+     * @see ExceptionBarrier#hedged(SupplierEX, Duration)
+     */
+    public <T> T get(SupplierEX<T, ?> supplier) {
+        if (supplier == null) {
+            throw new IllegalArgumentException();
+        }
+        return Racing.hedge(() -> timed(supplier), supplier, delayNanos);
+    }
+
+    /**
+     * the primary attempt on its own, not the race: a backup winning must not hide how slow the primary was
+     */
+    private <T> T timed(SupplierEX<T, ?> supplier) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            T result = supplier.get();
+            record(System.nanoTime() - start);
+            return result;
+        } catch (Throwable e) {
+            // cancelled because the backup won: it took at least this long
+            if (e instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+                record(System.nanoTime() - start);
+            }
+            throw e;
+        }
+    }
+
+    public Duration getDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    private void record(long nanos) {
+        int n = samples.getAndIncrement();
+        latencies.set(n & WINDOW - 1, nanos);
+        if ((n + 1) % RECOMPUTE_EVERY == 0) {
+            int size = n >= WINDOW - 1 || n < 0 ? WINDOW : n + 1;
+            long[] copy = new long[size];
+            for (int i = 0; i < size; i++) {
+                copy[i] = latencies.get(i);
+            }
+            Arrays.sort(copy);
+            delayNanos = copy[Math.min(size - 1, (int) (size * percentile))];
+        }
+    }
+
+}
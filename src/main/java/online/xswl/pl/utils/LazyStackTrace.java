@@ -0,0 +1,98 @@
+package online.xswl.pl.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * a throwable whose text is only built when somebody calls {@link #toString()}
+ * <p>hand it to a logger as a plain argument ({@code log.warn("... {}", LazyStackTrace.of(e, 32))}) and the stack is
+ * rendered by the appender that actually writes the line; events dropped by level or filter never pay for it</p>
+ * <p>at most {@code depth} frames are rendered per throwable in the cause chain, and the text of frames that keep showing up
+ * is cached, so the same call sites are not formatted again and again. as with {@link Throwable#printStackTrace()}, only a
+ * cause ends with "... n more", counting the frames it shares with the throwable above and those cut by the depth</p>
+ *
+ * @author PL
+ */
+public final class LazyStackTrace {
+
+    private static final int MAX_CACHED_FRAMES = 4096;
+
+    private static final int MAX_CAUSES = 8;
+
+    private static final Map<StackTraceElement, String> FRAMES = new ConcurrentHashMap<>();
+
+    private final Throwable throwable;
+
+    private final int depth;
+
+    private String rendered;
+
+    private LazyStackTrace(Throwable throwable, int depth) {
+        this.throwable = throwable;
+        this.depth = depth;
+    }
+
+    public static LazyStackTrace of(Throwable throwable, int depth) {
+        if (throwable == null || depth < 0) {
+            throw new IllegalArgumentException();
+        }
+        return new LazyStackTrace(throwable, depth);
+    }
+
+    public Throwable getThrowable() {
+        return throwable;
+    }
+
+    @Override
+    public String toString() {
+        String s = rendered;
+        if (s == null) {
+            s = rendered = render();
+        }
+        return s;
+    }
+
+    private String render() {
+        StringBuilder sb = new StringBuilder(256);
+        Throwable t = throwable;
+        StackTraceElement[] enclosing = null;
+        for (int n = 0; t != null && n < MAX_CAUSES; n++) {
+            if (n > 0) {
+                sb.append("\nCaused by: ");
+            }
+            sb.append(t);
+            StackTraceElement[] trace = t.getStackTrace();
+            // like printStackTrace, a cause leaves out the frames it shares with the throwable it caused
+            int unique = trace.length;
+            if (n > 0) {
+                for (int j = enclosing.length - 1; unique > 0 && j >= 0 && trace[unique - 1].equals(enclosing[j]); j--) {
+                    unique--;
+                }
+            }
+            int shown = Math.min(depth, unique);
+            for (int i = 0; i < shown; i++) {
+                sb.append("\n\tat ").append(frame(trace[i]));
+            }
+            if (n > 0 && shown < trace.length) {
+                sb.append("\n\t... ").append(trace.length - shown).append(" more");
+            }
+            enclosing = trace;
+            Throwable cause = t.getCause();
+            t = cause != t ? cause : null;
+        }
+        return sb.toString();
+    }
+
+    private static String frame(StackTraceElement element) {
+        String text = FRAMES.get(element);
+        if (text == null) {
+            text = element.toString();
+            if (FRAMES.size() < MAX_CACHED_FRAMES) {
+                FRAMES.putIfAbsent(element, text);
+            }
+        }
+        return text;
+    }
+
+}
@@ -0,0 +1,523 @@
+package online.xswl.pl.utils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+
+/**
+ * copy bean properties from one type to another, matched by name once and then replayed as plain calls
+ * <pre>
+ *     Mapper&lt;UserDTO, User&gt; toEntity = Coding.mapper(UserDTO.class, User.class);
+ *     User user = toEntity.map(dto);
+ *     List&lt;User&gt; users = toEntity.mapAll(dtos);
+ *
+ *     Mapper&lt;UserDTO, User&gt; custom = Coding.mapperBuilder(UserDTO.class, User.class)
+ *             .convert("birthday", LocalDate.class, (String s) -> LocalDate.parse(s))
+ *             .ignore("password")
+ *             .build();
+ * </pre>
+ * <p>getters and setters are turned into {@link Function}/{@link BiConsumer} instances with {@link LambdaMetafactory},
+ * so a copy costs about what hand-written {@code target.setX(source.getX())} costs; when that is not possible
+ * (e.g. the classes are not visible from here) a bound {@link MethodHandle} is used instead</p>
+ * <p>a property is copied when the source has a getter and the target has a setter of the same name and a compatible type,
+ * generic types resolved against the two classes; of overloaded setters the one taking exactly the getter's type wins, then
+ * the most specific one it can be assigned to, then the narrowest primitive it widens to (an int getter fills a long
+ * setter). a converter failing on one field, or returning what the setter cannot take, is logged like
+ * {@link ExceptionBarrier#loggingGetOrNull} and only that field is skipped</p>
+ *
+ * @author PL
+ */
+public final class Mapper<S, T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<Map<Class<?>, Mapper<?, ?>>> CACHE = new ClassValue<Map<Class<?>, Mapper<?, ?>>>() {
+        @Override
+        protected Map<Class<?>, Mapper<?, ?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * returned by {@link #convert} when the converter threw or its result does not fit the setter, the field is then left alone
+     */
+    private static final Object FAILED = new Object();
+
+    /**
+     * the primitives each one widens to, narrowest first
+     */
+    private static final Map<Class<?>, List<Class<?>>> WIDENING = new HashMap<>();
+
+    static {
+        WIDENING.put(byte.class, Arrays.asList(short.class, int.class, long.class, float.class, double.class));
+        WIDENING.put(short.class, Arrays.asList(int.class, long.class, float.class, double.class));
+        WIDENING.put(char.class, Arrays.asList(int.class, long.class, float.class, double.class));
+        WIDENING.put(int.class, Arrays.asList(long.class, float.class, double.class));
+        WIDENING.put(long.class, Arrays.asList(float.class, double.class));
+        WIDENING.put(float.class, Collections.singletonList(double.class));
+    }
+
+    private final Supplier<T> constructor;
+
+    private final Property[] properties;
+
+    private Mapper(Supplier<T> constructor, List<Property> properties) {
+        this.constructor = constructor;
+        this.properties = properties.toArray(new Property[0]);
+    }
+
+    /**
+     * the mapper for this pair of types, matched once and shared afterwards
+     */
+    @SuppressWarnings("unchecked")
+    public static <S, T> Mapper<S, T> of(Class<S> source, Class<T> target) {
+        if (source == null || target == null) {
+            throw new IllegalArgumentException();
+        }
+        return (Mapper<S, T>) CACHE.get(source).computeIfAbsent(target, t -> builder(source, target).build());
+    }
+
+    /**
+     * for per-field converters or ignored fields; the result is not cached, keep it yourself
+     */
+    public static <S, T> Builder<S, T> builder(Class<S> source, Class<T> target) {
+        if (source == null || target == null) {
+            throw new IllegalArgumentException();
+        }
+        return new Builder<>(source, target);
+    }
+
+    /**
+     * @return a new target filled from the source, or null when the source is null
+     */
+    public T map(S source) {
+        return source == null ? null : map(source, constructor.get());
+    }
+
+    /**
+     * fill an existing target
+     *
+     * @return the target
+     */
+    public T map(S source, T target) {
+        if (source == null || target == null) {
+            return target;
+        }
+        for (Property property : properties) {
+            Object value = property.getter.apply(source);
+            if (property.converter != null) {
+                value = convert(property, value);
+                if (value == FAILED) {
+                    continue;
+                }
+            }
+            // null cannot go into a primitive, leave the target's default
+            if (value != null || !property.primitive) {
+                property.setter.accept(target, value);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * a failing converter is logged like {@link ExceptionBarrier#loggingGetOrNull}, unlike it a null result still gets set;
+     * so is a result the setter cannot take
+     */
+    private static Object convert(Property property, Object value) {
+        Object converted;
+        try {
+            converted = property.converter.apply(value);
+        } catch (Throwable e) {
+            ExceptionBarrier.manager().getExceptionLoggingConsumer().logging(e);
+            return FAILED;
+        }
+        if (converted != null && !property.accepted.isInstance(converted)) {
+            ExceptionBarrier.manager().getExceptionLoggingConsumer().logging(new ClassCastException(
+                    converted.getClass().getName() + " cannot be set as " + property.accepted.getName()));
+            return FAILED;
+        }
+        return converted;
+    }
+
+    /**
+     * map every element into a list sized up front; null elements stay null
+     */
+    public List<T> mapAll(Collection<? extends S> sources) {
+        if (sources == null) {
+            return new ArrayList<>(0);
+        }
+        List<T> list = new ArrayList<>(sources.size());
+        for (S source : sources) {
+            list.add(map(source));
+        }
+        return list;
+    }
+
+
+    public static final class Builder<S, T> {
+
+        private final Class<S> source;
+
+        private final Class<T> target;
+
+        private final Map<String, Function<Object, Object>> converters = new HashMap<>();
+
+        private final Map<String, Class<?>> convertedTypes = new HashMap<>();
+
+        private final Set<String> ignored = new HashSet<>();
+
+        private Builder(Class<S> source, Class<T> target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        /**
+         * convert the property before setting it, types no longer have to match; the setter is still chosen by the
+         * getter's type, prefer {@link #convert(String, Class, Function)} when the target overloads it
+         *
+         * @param property name of a property the source can read and the target can write, checked by {@link #build()}
+         */
+        @SuppressWarnings("unchecked")
+        public <F, R> Builder<S, T> convert(String property, Function<F, R> converter) {
+            if (property == null || converter == null) {
+                throw new IllegalArgumentException();
+            }
+            converters.put(property, (Function<Object, Object>) converter);
+            convertedTypes.remove(property);
+            return this;
+        }
+
+        /**
+         * convert the property before setting it, into the setter taking the converter's result type
+         *
+         * @param type what the converter returns, {@link #build()} checks the target has a setter for it
+         */
+        public <F, R> Builder<S, T> convert(String property, Class<R> type, Function<F, R> converter) {
+            if (type == null) {
+                throw new IllegalArgumentException();
+            }
+            convert(property, converter);
+            convertedTypes.put(property, type);
+            return this;
+        }
+
+        public Builder<S, T> ignore(String... properties) {
+            if (properties == null) {
+                throw new IllegalArgumentException();
+            }
+            for (String property : properties) {
+                ignored.add(property);
+            }
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the target has no public no-arg constructor,
+         *                                  or a converter was given for a property that is not on both sides,
+         *                                  or for a result type none of the property's setters takes
+         */
+        public Mapper<S, T> build() {
+            Map<TypeVariable<?>, Type> sourceArguments = typeArguments(source);
+            Map<TypeVariable<?>, Type> targetArguments = typeArguments(target);
+            Map<String, Method> readers = readers(source);
+            List<Property> properties = new ArrayList<>();
+            Set<String> unmatched = new HashSet<>(converters.keySet());
+            for (Map.Entry<String, List<Method>> writers : writers(target).entrySet()) {
+                String property = writers.getKey();
+                Method reader = readers.get(property);
+                if (reader == null) {
+                    continue;
+                }
+                unmatched.remove(property);
+                if (ignored.contains(property)) {
+                    continue;
+                }
+                Function<Object, Object> converter = converters.get(property);
+                Class<?> converted = convertedTypes.get(property);
+                Class<?> from = converted != null ? converted : erase(reader.getGenericReturnType(), sourceArguments);
+                Method writer = pick(writers.getValue(), from, targetArguments);
+                if (writer == null && converted != null) {
+                    throw new IllegalArgumentException("no setter of " + property + " takes " + converted.getName());
+                }
+                if (writer == null && converter != null) {
+                    // the converted type is not known, any overload will do as long as the choice is always the same
+                    writer = writers.getValue().get(0);
+                }
+                if (writer == null) {
+                    continue;
+                }
+                Class<?> to = erase(writer.getGenericParameterTypes()[0], targetArguments);
+                // widened, the setter is handed the narrower box and converts it, an Integer into a long
+                Class<?> accepted = widens(from, to) ? box(from) : box(to);
+                Class<?> argument = widens(from, to) ? accepted : box(writer.getParameterTypes()[0]);
+                properties.add(new Property(getter(reader), setter(writer, argument), converter, accepted, to.isPrimitive()));
+            }
+            if (!unmatched.isEmpty()) {
+                throw new IllegalArgumentException("no such property to convert: " + unmatched);
+            }
+            return new Mapper<>(constructor(target), properties);
+        }
+    }
+
+    private static final class Property {
+
+        final Function<Object, Object> getter;
+
+        final BiConsumer<Object, Object> setter;
+
+        final Function<Object, Object> converter;
+
+        /**
+         * what a converted value has to be for the setter to take it
+         */
+        final Class<?> accepted;
+
+        final boolean primitive;
+
+        Property(Function<Object, Object> getter, BiConsumer<Object, Object> setter, Function<Object, Object> converter,
+                 Class<?> accepted, boolean primitive) {
+            this.getter = getter;
+            this.setter = setter;
+            this.converter = converter;
+            this.accepted = accepted;
+            this.primitive = primitive;
+        }
+    }
+
+
+    /**
+     * compiler-made methods (bridges for generic or covariant overrides) are not properties of their own
+     */
+    private static boolean accessor(Method m) {
+        return !Modifier.isStatic(m.getModifiers()) && !m.isBridge() && !m.isSynthetic();
+    }
+
+    /**
+     * an {@code isX} wins over a {@code getX} of the same property, whatever order the methods come in
+     */
+    private static Map<String, Method> readers(Class<?> type) {
+        Map<String, Method> map = new LinkedHashMap<>();
+        for (Method m : type.getMethods()) {
+            if (!accessor(m) || m.getParameterCount() != 0 || m.getDeclaringClass() == Object.class) {
+                continue;
+            }
+            String name = m.getName();
+            if (name.startsWith("get") && name.length() > 3 && m.getReturnType() != void.class) {
+                map.putIfAbsent(decapitalize(name.substring(3)), m);
+            } else if (name.startsWith("is") && name.length() > 2 && m.getReturnType() == boolean.class) {
+                map.put(decapitalize(name.substring(2)), m);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * every overload of a setter, in a fixed order
+     */
+    private static Map<String, List<Method>> writers(Class<?> type) {
+        Map<String, List<Method>> map = new LinkedHashMap<>();
+        for (Method m : type.getMethods()) {
+            String name = m.getName();
+            if (accessor(m) && m.getParameterCount() == 1 && name.startsWith("set") && name.length() > 3) {
+                map.computeIfAbsent(decapitalize(name.substring(3)), k -> new ArrayList<>(1)).add(m);
+            }
+        }
+        for (List<Method> overloads : map.values()) {
+            overloads.sort(Comparator.comparing((Method m) -> m.getParameterTypes()[0].getName()));
+        }
+        return map;
+    }
+
+    /**
+     * the overload taking exactly the read type, else the most specific one it can be assigned to, else the narrowest
+     * primitive it widens to, else null
+     */
+    private static Method pick(List<Method> overloads, Class<?> from, Map<TypeVariable<?>, Type> arguments) {
+        Method best = null;
+        Class<?> bestType = null;
+        for (Method m : overloads) {
+            Class<?> to = erase(m.getGenericParameterTypes()[0], arguments);
+            if (to == from) {
+                return m;
+            }
+            if (box(to).isAssignableFrom(box(from)) && (bestType == null || box(bestType).isAssignableFrom(box(to)))) {
+                best = m;
+                bestType = to;
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+        for (Class<?> wider : WIDENING.getOrDefault(unbox(from), Collections.emptyList())) {
+            for (Method m : overloads) {
+                if (erase(m.getGenericParameterTypes()[0], arguments) == wider) {
+                    return m;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * an int or an Integer widening into a long, never a Long into an int
+     */
+    private static boolean widens(Class<?> from, Class<?> to) {
+        return WIDENING.getOrDefault(unbox(from), Collections.emptyList()).contains(to);
+    }
+
+    /**
+     * what each type variable of the supertypes stands for in the given class, e.g. T = String for
+     * {@code class Target extends Base<String>}
+     */
+    private static Map<TypeVariable<?>, Type> typeArguments(Class<?> type) {
+        Map<TypeVariable<?>, Type> map = new HashMap<>();
+        collectTypeArguments(type, map);
+        return map;
+    }
+
+    private static void collectTypeArguments(Type type, Map<TypeVariable<?>, Type> map) {
+        Class<?> raw;
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            raw = (Class<?>) parameterized.getRawType();
+            TypeVariable<?>[] variables = raw.getTypeParameters();
+            Type[] actual = parameterized.getActualTypeArguments();
+            for (int i = 0; i < variables.length; i++) {
+                map.putIfAbsent(variables[i], actual[i]);
+            }
+        } else if (type instanceof Class) {
+            raw = (Class<?>) type;
+        } else {
+            return;
+        }
+        collectTypeArguments(raw.getGenericSuperclass(), map);
+        for (Type face : raw.getGenericInterfaces()) {
+            collectTypeArguments(face, map);
+        }
+    }
+
+    private static Class<?> erase(Type type, Map<TypeVariable<?>, Type> arguments) {
+        // bounded, a variable could be bound to itself through a raw supertype
+        for (int i = 0; i < 8 && type instanceof TypeVariable && arguments.containsKey(type); i++) {
+            type = arguments.get(type);
+        }
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(erase(((GenericArrayType) type).getGenericComponentType(), arguments), 0).getClass();
+        }
+        if (type instanceof TypeVariable) {
+            return erase(((TypeVariable<?>) type).getBounds()[0], arguments);
+        }
+        if (type instanceof WildcardType) {
+            return erase(((WildcardType) type).getUpperBounds()[0], arguments);
+        }
+        return Object.class;
+    }
+
+    private static String decapitalize(String s) {
+        if (s.length() > 1 && Character.isUpperCase(s.charAt(1))) {
+            return s;
+        }
+        return Character.toLowerCase(s.charAt(0)) + s.substring(1);
+    }
+
+    private static Class<?> box(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    private static Class<?> unbox(Class<?> type) {
+        return MethodType.methodType(type).unwrap().returnType();
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        // public methods of a non-public class, reachable only after opening them
+        method.trySetAccessible();
+        return ExceptionBarrier.throwingGet(() -> LOOKUP.unreflect(method));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> getter(Method method) {
+        MethodHandle handle = unreflect(method);
+        try {
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply", MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class), handle, handle.type().wrap());
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+            return o -> ExceptionBarrier.throwingGet(() -> generic.invokeExact(o));
+        }
+    }
+
+    /**
+     * @param argument the boxed type the setter is called with, its own or a narrower one it widens from
+     */
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> setter(Method method, Class<?> argument) {
+        MethodHandle handle = unreflect(method);
+        MethodType called = MethodType.methodType(void.class, handle.type().parameterType(0), argument);
+        try {
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept", MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class), handle, called);
+            return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            MethodHandle generic = handle.asType(called).asType(MethodType.methodType(void.class, Object.class, Object.class));
+            // a statement lambda, an expression one would return what invokeExact returns and expect (Object,Object)Object
+            return (o, v) -> ExceptionBarrier.throwingExecute(() -> {
+                generic.invokeExact(o, v);
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> constructor(Class<T> type) {
+        MethodHandle handle;
+        try {
+            Constructor<T> constructor = type.getConstructor();
+            constructor.trySetAccessible();
+            handle = LOOKUP.unreflectConstructor(constructor);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " needs a public no-arg constructor", e);
+        }
+        try {
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), handle, handle.type());
+            return (Supplier<T>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            MethodHandle generic = handle.asType(MethodType.methodType(Object.class));
+            return () -> (T) ExceptionBarrier.throwingGet(() -> generic.invokeExact());
+        }
+    }
+
+}
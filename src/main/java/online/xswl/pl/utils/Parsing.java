@@ -0,0 +1,316 @@
+package online.xswl.pl.utils;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+
+/**
+ * the parsers behind {@link Transformer#toInt(CharSequence, int)} and friends
+ * <p>the source is either a {@link CharSequence} or an ASCII {@code byte[]}, read in place: no substring, no trim, no boxing,
+ * and a bad input gives the default back instead of an exception</p>
+ *
+ * @author PL
+ */
+final class Parsing {
+
+    private Parsing() {}
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private static final int MAX_EXPONENT = 100_000_000;
+
+
+    static int length(Object src) {
+        return src instanceof byte[] ? ((byte[]) src).length : ((CharSequence) src).length();
+    }
+
+    static void checkRange(Object src, int from, int to) {
+        Objects.checkFromToIndex(from, to, length(src));
+    }
+
+    private static char charAt(Object src, int i) {
+        return src instanceof byte[] ? (char) (((byte[]) src)[i] & 0xFF) : ((CharSequence) src).charAt(i);
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+
+    private static int skipLeading(Object src, int from, int to) {
+        while (from < to && Character.isWhitespace(charAt(src, from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int skipTrailing(Object src, int from, int to) {
+        while (to > from && Character.isWhitespace(charAt(src, to - 1))) {
+            to--;
+        }
+        return to;
+    }
+
+    private static boolean matches(Object src, int from, int to, String word) {
+        if (to - from != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(charAt(src, from + i)) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * same idea as {@link Tester#isBlank(String)}: nothing but whitespace, "null" or "undefined"
+     */
+    private static boolean isBlank(Object src, int from, int to) {
+        return from >= to || matches(src, from, to, "null") || matches(src, from, to, "undefined");
+    }
+
+
+    static int toInt(Object src, int from, int to, int def) {
+        from = skipLeading(src, from, to);
+        to = skipTrailing(src, from, to);
+        if (isBlank(src, from, to)) {
+            return def;
+        }
+        boolean negative = false;
+        char first = charAt(src, from);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++from == to) {
+                return def;
+            }
+        }
+        // accumulate negatively, the negative range is one larger
+        int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int multmin = limit / 10;
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            int d = digit(charAt(src, i));
+            if (d < 0 || result < multmin) {
+                return def;
+            }
+            result *= 10;
+            if (result < limit + d) {
+                return def;
+            }
+            result -= d;
+        }
+        return negative ? result : -result;
+    }
+
+    static long toLong(Object src, int from, int to, long def) {
+        from = skipLeading(src, from, to);
+        to = skipTrailing(src, from, to);
+        if (isBlank(src, from, to)) {
+            return def;
+        }
+        boolean negative = false;
+        char first = charAt(src, from);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++from == to) {
+                return def;
+            }
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            int d = digit(charAt(src, i));
+            if (d < 0 || result < multmin) {
+                return def;
+            }
+            result *= 10;
+            if (result < limit + d) {
+                return def;
+            }
+            result -= d;
+        }
+        return negative ? result : -result;
+    }
+
+    static boolean toBoolean(Object src, int from, int to, boolean def) {
+        from = skipLeading(src, from, to);
+        to = skipTrailing(src, from, to);
+        if (matches(src, from, to, "true") || matches(src, from, to, "1")) {
+            return true;
+        }
+        if (matches(src, from, to, "false") || matches(src, from, to, "0")) {
+            return false;
+        }
+        return def;
+    }
+
+
+    /**
+     * a decimal number split into digits and a power of ten, without building anything yet
+     * <p>one per thread, refilled by every {@link #scan}: the scan is too large to be inlined, so a fresh instance per
+     * call would escape into it and be allocated every time</p>
+     */
+    private static final class Decimal {
+
+        boolean negative;
+
+        /**
+         * the first 18 significant digits
+         */
+        long mantissa;
+
+        int digits;
+
+        /**
+         * value = mantissa * 10^exponent, as long as digits <= 18
+         */
+        int exponent;
+
+        /**
+         * the written exponent was clamped, only the JDK parsers can judge it
+         */
+        boolean hugeExponent;
+
+        int from;
+
+        int to;
+    }
+
+    private static final ThreadLocal<Decimal> SCRATCH = ThreadLocal.withInitial(Decimal::new);
+
+    /**
+     * [+-]digits[.digits][(e|E)[+-]digits], at least one digit before the exponent
+     *
+     * @return false on a format error, true with every part of {@code out} filled in otherwise
+     */
+    private static boolean scan(Object src, int from, int to, Decimal out) {
+        from = skipLeading(src, from, to);
+        to = skipTrailing(src, from, to);
+        if (isBlank(src, from, to)) {
+            return false;
+        }
+        out.from = from;
+        out.to = to;
+        out.hugeExponent = false;
+        int i = from;
+        char c = charAt(src, i);
+        out.negative = c == '-';
+        if (c == '-' || c == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int dropped = 0;
+        int fraction = 0;
+        boolean seenDigit = false;
+        boolean seenDot = false;
+        for (; i < to; i++) {
+            c = charAt(src, i);
+            int d = digit(c);
+            if (d >= 0) {
+                seenDigit = true;
+                if (digits < MAX_LONG_DIGITS) {
+                    if (mantissa != 0 || d != 0) {
+                        digits++;
+                    }
+                    mantissa = mantissa * 10 + d;
+                    if (seenDot) {
+                        fraction++;
+                    }
+                } else {
+                    digits++;
+                    if (!seenDot) {
+                        dropped++;
+                    }
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+        }
+        if (!seenDigit) {
+            return false;
+        }
+        int exponent = 0;
+        if (i < to) {
+            if (c != 'e' && c != 'E' || ++i == to) {
+                return false;
+            }
+            boolean negativeExp = false;
+            c = charAt(src, i);
+            if (c == '-' || c == '+') {
+                negativeExp = c == '-';
+                if (++i == to) {
+                    return false;
+                }
+            }
+            for (; i < to; i++) {
+                int d = digit(charAt(src, i));
+                if (d < 0) {
+                    return false;
+                }
+                exponent = exponent * 10 + d;
+                if (exponent > MAX_EXPONENT) {
+                    exponent = MAX_EXPONENT;
+                    out.hugeExponent = true;
+                }
+            }
+            if (negativeExp) {
+                exponent = -exponent;
+            }
+        }
+        out.mantissa = mantissa;
+        out.digits = digits;
+        out.exponent = exponent + dropped - fraction;
+        return true;
+    }
+
+    private static String text(Object src, int from, int to) {
+        StringBuilder sb = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            sb.append(charAt(src, i));
+        }
+        return sb.toString();
+    }
+
+    static double toDouble(Object src, int from, int to, double def) {
+        Decimal d = SCRATCH.get();
+        if (!scan(src, from, to, d)) {
+            return def;
+        }
+        double value;
+        if (d.mantissa == 0) {
+            value = 0;
+        } else if (d.digits <= MAX_LONG_DIGITS && d.mantissa <= MAX_EXACT_MANTISSA && Math.abs(d.exponent) < POW10.length) {
+            // both operands are exact, so one IEEE operation rounds correctly
+            value = d.exponent < 0 ? d.mantissa / POW10[-d.exponent] : d.mantissa * POW10[d.exponent];
+        } else {
+            // rare: long mantissa or far exponent, let the JDK do the correct rounding; the syntax is already checked
+            return Double.parseDouble(text(src, d.from, d.to));
+        }
+        return d.negative ? -value : value;
+    }
+
+    static BigDecimal toBigDecimal(Object src, int from, int to, BigDecimal def) {
+        Decimal d = SCRATCH.get();
+        if (!scan(src, from, to, d)) {
+            return def;
+        }
+        if (d.digits <= MAX_LONG_DIGITS && !d.hugeExponent) {
+            return BigDecimal.valueOf(d.negative ? -d.mantissa : d.mantissa, -d.exponent);
+        }
+        // rare: more digits than a long holds, or a scale BigDecimal may reject
+        String text = text(src, d.from, d.to);
+        return ExceptionBarrier.silentGetOrElse(() -> new BigDecimal(text), def);
+    }
+
+}
@@ -0,0 +1,205 @@
+package online.xswl.pl.utils;
+
+import online.xswl.pl.Designer.Policy;
+import online.xswl.pl.PolicyScope;
+import online.xswl.pl.utils.ExceptionBarrier.ExceptionLoggingConsumer;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * run several attempts at the same data, keep the first that does not throw
+ * <p>attempt k starts after k * stagger, or at once when an earlier attempt has failed; as soon as one succeeds the others
+ * are cancelled (interrupted if running, skipped if not started yet). an attempt the executor rejects counts as failed.
+ * only when every attempt failed, the failures go to the logging consumer as one exception, the first one carrying the others
+ * as suppressed; when none succeeded within the policy's timeout, a {@link TimeoutException} goes there instead</p>
+ * <p>attempts run with the caller's {@link PolicyScope}, wherever the executor runs them</p>
+ *
+ * @author PL
+ */
+final class Racing<T> {
+
+    private final SupplierEX<T, ?>[] attempts;
+
+    private final FutureTask<?>[] tasks;
+
+    private final Executor executor;
+
+    private final CompletableFuture<T> winner = new CompletableFuture<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+    private Racing(SupplierEX<T, ?>[] attempts, Executor executor) {
+        this.attempts = attempts;
+        this.tasks = new FutureTask<?>[attempts.length];
+        this.executor = executor;
+        for (int i = 0; i < attempts.length; i++) {
+            int index = i;
+            tasks[i] = new FutureTask<>(PolicyScope.wrap(() -> run(index)), null);
+        }
+    }
+
+    /**
+     * @param staggerNanos delay between the starts of two attempts, 0 starts them all together
+     * @return the first successful result, or null if all attempts failed (the failures are logged)
+     */
+    static <T> T race(SupplierEX<T, ?>[] attempts, long staggerNanos) {
+        if (attempts == null || attempts.length == 0 || staggerNanos < 0) {
+            throw new IllegalArgumentException();
+        }
+        Policy policy = ExceptionBarrier.manager();
+        Racing<T> racing = new Racing<>(attempts, policy.getExecutor());
+        racing.start(staggerNanos);
+        return racing.await(policy.getTimeout().toNanos(), policy.getExceptionLoggingConsumer());
+    }
+
+    /**
+     * the primary, and after delayNanos the backup
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> T hedge(SupplierEX<T, ?> primary, SupplierEX<T, ?> backup, long delayNanos) {
+        SupplierEX<T, ?>[] attempts = new SupplierEX[]{primary, backup};
+        return race(attempts, delayNanos);
+    }
+
+    private void start(long staggerNanos) {
+        launchNext();
+        for (int k = 1; k < attempts.length; k++) {
+            if (staggerNanos == 0) {
+                launchNext();
+            } else {
+                // only the hand-over waits for the delay, launchNext itself deals with a rejecting executor
+                CompletableFuture.delayedExecutor(staggerNanos * k, TimeUnit.NANOSECONDS, Runnable::run).execute(this::launchNext);
+            }
+        }
+    }
+
+    private void launchNext() {
+        int i = next.getAndIncrement();
+        if (i < tasks.length && !winner.isDone()) {
+            try {
+                executor.execute(tasks[i]);
+            } catch (RuntimeException e) {
+                // e.g. RejectedExecutionException from a saturated or shut down pool
+                fail(e);
+            }
+        }
+    }
+
+    private void fail(Throwable e) {
+        failures.add(e);
+        if (failed.incrementAndGet() == attempts.length) {
+            winner.completeExceptionally(aggregate());
+        } else {
+            launchNext();
+        }
+    }
+
+    private void run(int index) {
+        T result;
+        try {
+            result = Thread.currentThread() instanceof ForkJoinWorkerThread ? blocking(attempts[index]) : attempts[index].get();
+        } catch (Throwable e) {
+            if (winner.isDone()) {
+                // a loser interrupted by cancel, nothing to report
+                return;
+            }
+            fail(e);
+            return;
+        }
+        if (winner.complete(result)) {
+            // not our own task, that would leave this pool thread interrupted
+            for (int i = 0; i < tasks.length; i++) {
+                if (i != index) {
+                    tasks[i].cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * attempts usually wait on I/O; tell the pool, so a busy common pool adds a thread for the other attempts
+     * instead of running them one after another
+     */
+    private static <T> T blocking(SupplierEX<T, ?> attempt) throws Throwable {
+        Object[] result = new Object[1];
+        Throwable[] failure = new Throwable[1];
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            @Override
+            public boolean block() {
+                try {
+                    result[0] = attempt.get();
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return false;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        @SuppressWarnings("unchecked")
+        T t = (T) result[0];
+        return t;
+    }
+
+    private Throwable aggregate() {
+        Throwable first = failures.poll();
+        for (Throwable other; (other = failures.poll()) != null; ) {
+            if (other != first) {
+                first.addSuppressed(other);
+            }
+        }
+        return first;
+    }
+
+    private T await(long timeoutNanos, ExceptionLoggingConsumer logging) {
+        try {
+            return winner.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            stop(e);
+            Thread.currentThread().interrupt();
+            logging.logging(e);
+        } catch (TimeoutException e) {
+            TimeoutException timeout = new TimeoutException("no attempt succeeded within " + Duration.ofNanos(timeoutNanos));
+            for (Throwable failure : failures) {
+                timeout.addSuppressed(failure);
+            }
+            stop(timeout);
+            logging.logging(timeout);
+        } catch (Throwable e) {
+            logging.logging(e.getCause() != null ? e.getCause() : e);
+        }
+        return null;
+    }
+
+    /**
+     * the caller gave up: no more launches, and the running attempts are interrupted
+     */
+    private void stop(Throwable reason) {
+        winner.completeExceptionally(reason);
+        for (FutureTask<?> task : tasks) {
+            task.cancel(true);
+        }
+    }
+
+}
@@ -0,0 +1,345 @@
+package online.xswl.pl.utils;
+
+import online.xswl.pl.utils.ExceptionBarrier.ExceptionLoggingConsumer;
+
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * logs only a fraction of the exceptions, but remembers the recent distinct ones in memory
+ * <pre>
+ *     SamplingExceptionLogger sampler = SamplingExceptionLogger.of(Coding.design().getExceptionLoggingConsumer(), 0.01, 64);
+ *     Coding.design().setExceptionLoggingConsumer(sampler);
+ *     ...
+ *     sampler.recent(); // what has been failing lately, newest first
+ * </pre>
+ * <p>failures are told apart by exception type and by the code that reported them, the first frame outside this library
+ * and the JDK; finding it walks only those few frames whatever the depth of the failure's own stack, which is copied only
+ * the first time a failure is seen. a failure reported from a pool thread (a batch of {@link BatchLoader}) has no such
+ * frame, there the first one of its own stack is taken instead. failures of one type from one place count as one,
+ * whatever their message. each failure has a short run of slots in the reservoir, recording looks at these and does one
+ * CAS at most, whatever the number of threads</p>
+ *
+ * @author PL
+ */
+public final class SamplingExceptionLogger implements ExceptionLoggingConsumer {
+
+    private static final int DEFAULT_STACK_DEPTH = 8;
+
+    /**
+     * slots looked at for one failure
+     */
+    private static final int PROBES = 4;
+
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private static final String LIBRARY_PACKAGE = "online.xswl.pl.";
+
+    private static final ProtectionDomain LIBRARY_DOMAIN = SamplingExceptionLogger.class.getProtectionDomain();
+
+    /**
+     * frames a failure is only handed through, never reported from: this library's (whatever reporter, Racing,
+     * BatchLoader, Mapper, the Coding facade) and the JDK's. classes of the library's package from elsewhere, such as its
+     * tests, are callers like any other
+     */
+    private static final ClassValue<Boolean> PASSED_THROUGH = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            if (type.getName().startsWith(LIBRARY_PACKAGE)) {
+                return type.getProtectionDomain() == LIBRARY_DOMAIN;
+            }
+            ClassLoader loader = type.getClassLoader();
+            return loader == null || loader == ClassLoader.getPlatformClassLoader();
+        }
+    };
+
+    private static final int MAX_NAMED = 4096;
+
+    /**
+     * {@link #PASSED_THROUGH} for frames of a failure's own stack, which carry a class name only
+     */
+    private static final Map<String, Boolean> NAMED = new ConcurrentHashMap<>();
+
+    private final ExceptionLoggingConsumer delegate;
+
+    private final double rate;
+
+    private final int capacity;
+
+    private final int stackDepth;
+
+    /**
+     * at least twice the capacity, so a failure nearly always finds a free slot in its run
+     */
+    private final AtomicReferenceArray<Failure> reservoir;
+
+    private final int mask;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * clock hand for evicting when full
+     */
+    private final AtomicInteger hand = new AtomicInteger();
+
+    private SamplingExceptionLogger(ExceptionLoggingConsumer delegate, double rate, int capacity, int stackDepth) {
+        this.delegate = delegate;
+        this.rate = rate;
+        this.capacity = capacity;
+        this.stackDepth = stackDepth;
+        int length = Integer.highestOneBit(Math.max(PROBES, capacity * 2 - 1)) << 1;
+        this.reservoir = new AtomicReferenceArray<>(length);
+        this.mask = length - 1;
+    }
+
+    /**
+     * @param delegate where the sampled exceptions go
+     * @param rate     fraction of exceptions handed to the delegate, 0 means none and 1 means all
+     * @param capacity how many distinct failures to keep at most
+     */
+    public static SamplingExceptionLogger of(ExceptionLoggingConsumer delegate, double rate, int capacity) {
+        return of(delegate, rate, capacity, DEFAULT_STACK_DEPTH);
+    }
+
+    /**
+     * @param stackDepth how many frames of each failure to keep
+     * @see #of(ExceptionLoggingConsumer, double, int)
+     */
+    public static SamplingExceptionLogger of(ExceptionLoggingConsumer delegate, double rate, int capacity, int stackDepth) {
+        if (delegate == null || rate < 0 || rate > 1 || capacity <= 0 || capacity > 1 << 29 || stackDepth <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return new SamplingExceptionLogger(delegate, rate, capacity, stackDepth);
+    }
+
+    @Override
+    public void logging(Throwable ex) {
+        if (ex == null) {
+            return;
+        }
+        record(ex);
+        if (rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+            delegate.logging(ex);
+        }
+    }
+
+    private void record(Throwable ex) {
+        String type = ex.getClass().getName();
+        StackTraceElement site = WALKER.walk(frames -> frames.filter(f -> !PASSED_THROUGH.get(f.getDeclaringClass())).findFirst())
+                .map(StackWalker.StackFrame::toStackTraceElement)
+                .orElse(null);
+        StackTraceElement[] trace = null;
+        if (site == null) {
+            // reported from a pool thread, e.g. a failed batch: where it was thrown is all there is
+            trace = ex.getStackTrace();
+            site = firstOwnFrame(trace);
+        }
+        int hash = type.hashCode() * 31 + (site != null ? site.hashCode() : 0);
+        int home = hash ^ hash >>> 16;
+        long now = System.currentTimeMillis();
+        int free = -1;
+        int stalest = -1;
+        Failure stale = null;
+        for (int i = 0; i < PROBES; i++) {
+            int slot = home + i & mask;
+            Failure old = reservoir.get(slot);
+            if (old == null) {
+                if (free < 0) {
+                    free = slot;
+                }
+            } else if (old.sameAs(type, site)) {
+                old.hit(now);
+                return;
+            } else if (stale == null || old.lastSeen < stale.lastSeen) {
+                stalest = slot;
+                stale = old;
+            }
+        }
+        if (trace == null) {
+            trace = ex.getStackTrace();
+        }
+        Failure fresh = new Failure(type, site, ex.getMessage(), Arrays.copyOf(trace, Math.min(stackDepth, trace.length)), now);
+        if (free < 0) {
+            // the run is taken, the failure seen least recently in it makes room
+            reservoir.compareAndSet(stalest, stale, fresh);
+            return;
+        }
+        if (size.incrementAndGet() > capacity) {
+            evictOne();
+        }
+        // losing the race only means another failure took the slot a moment earlier, drop ours
+        if (!reservoir.compareAndSet(free, null, fresh)) {
+            size.decrementAndGet();
+        }
+    }
+
+    private static StackTraceElement firstOwnFrame(StackTraceElement[] trace) {
+        for (StackTraceElement element : trace) {
+            if (!passedThrough(element.getClassName())) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * a class known only by name; one that cannot be found from here belongs to the application
+     */
+    private static boolean passedThrough(String className) {
+        Boolean known = NAMED.get(className);
+        if (known == null) {
+            try {
+                known = PASSED_THROUGH.get(Class.forName(className, false, SamplingExceptionLogger.class.getClassLoader()));
+            } catch (ClassNotFoundException | LinkageError e) {
+                known = false;
+            }
+            if (NAMED.size() < MAX_NAMED) {
+                NAMED.putIfAbsent(className, known);
+            }
+        }
+        return known;
+    }
+
+    /**
+     * full: remove whichever failure the clock hand reaches next
+     */
+    private void evictOne() {
+        for (int tries = 0; tries <= 2 * reservoir.length(); tries++) {
+            int slot = hand.getAndIncrement() & mask;
+            Failure old = reservoir.get(slot);
+            if (old != null && reservoir.compareAndSet(slot, old, null)) {
+                size.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * the failures currently held, most recently seen first
+     */
+    public List<Failure> recent() {
+        List<Failure> list = new ArrayList<>(reservoir.length());
+        for (int i = 0; i < reservoir.length(); i++) {
+            Failure failure = reservoir.get(i);
+            if (failure != null) {
+                list.add(failure);
+            }
+        }
+        list.sort(Comparator.comparingLong(Failure::getLastSeen).reversed());
+        return Collections.unmodifiableList(list);
+    }
+
+    public void clear() {
+        for (int i = 0; i < reservoir.length(); i++) {
+            if (reservoir.getAndSet(i, null) != null) {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+
+    /**
+     * one distinct failure: its type, where it was reported, first message, trimmed stack, when it was seen and how often
+     */
+    public static final class Failure {
+
+        private final String type;
+
+        private final StackTraceElement site;
+
+        private final String message;
+
+        private final StackTraceElement[] stackTrace;
+
+        private final long firstSeen;
+
+        private volatile long lastSeen;
+
+        private final LongAdder count = new LongAdder();
+
+        private Failure(String type, StackTraceElement site, String message, StackTraceElement[] stackTrace, long now) {
+            this.type = type;
+            this.site = site;
+            this.message = message;
+            this.stackTrace = stackTrace;
+            this.firstSeen = now;
+            this.lastSeen = now;
+            this.count.increment();
+        }
+
+        private boolean sameAs(String type, StackTraceElement site) {
+            return this.type.equals(type) && (this.site == null ? site == null : this.site.equals(site));
+        }
+
+        private void hit(long now) {
+            count.increment();
+            if (now > lastSeen) {
+                lastSeen = now;
+            }
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * the frame that handed the failure over, null if there was none
+         */
+        public StackTraceElement getSite() {
+            return site;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public StackTraceElement[] getStackTrace() {
+            return stackTrace.clone();
+        }
+
+        public long getFirstSeen() {
+            return firstSeen;
+        }
+
+        public long getLastSeen() {
+            return lastSeen;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(type);
+            if (message != null) {
+                sb.append(": ").append(message);
+            }
+            sb.append(" (x").append(count.sum()).append(')');
+            for (StackTraceElement element : stackTrace) {
+                sb.append("\n\tat ").append(element);
+            }
+            return sb.toString();
+        }
+    }
+
+}
@@ -1,5 +1,7 @@
 package online.xswl.pl.utils;
 
+import java.math.BigDecimal;
+
 /**
  * One thing transform to another
  *
@@ -7,5 +9,184 @@ package online.xswl.pl.utils;
  */
 public abstract class Transformer {
 
+    /**
+     * copy matching bean properties from source type to target type
+     * <pre>
+     *     User user = Coding.mapper(UserDTO.class, User.class).map(dto);
+     * </pre>
+     *
+     * @see Mapper
+     */
+    public static <S, T> Mapper<S, T> mapper(Class<S> source, Class<T> target) {
+        return Mapper.of(source, target);
+    }
+
+    /**
+     * @see Mapper.Builder
+     */
+    public static <S, T> Mapper.Builder<S, T> mapperBuilder(Class<S> source, Class<T> target) {
+        return Mapper.builder(source, target);
+    }
+
+    /**
+     * parse an int in place, without trimming, throwing or boxing
+     * <pre>
+     *     toInt(" 42 ", 0);       // 42
+     *     toInt("4x", -1);        // -1
+     *     toInt("2147483648", 0); // 0, overflow
+     *     toInt("null", 0);       // 0, blank like {@link Tester#isBlank(String)}
+     * </pre>
+     * <p>the range versions read {@code [from, to)} of a CharSequence or of ASCII bytes, no substring needed</p>
+     *
+     * @param def returned when the text is blank, malformed or out of range
+     * @throws IndexOutOfBoundsException on a bad range
+     */
+    public static int toInt(CharSequence s, int def) {
+        return s != null ? Parsing.toInt(s, 0, s.length(), def) : def;
+    }
+
+    /**
+     * @see #toInt(CharSequence, int)
+     */
+    public static int toInt(CharSequence s, int from, int to, int def) {
+        if (s == null) {
+            return def;
+        }
+        Parsing.checkRange(s, from, to);
+        return Parsing.toInt(s, from, to, def);
+    }
+
+    /**
+     * @see #toInt(CharSequence, int)
+     */
+    public static int toInt(byte[] bytes, int from, int to, int def) {
+        if (bytes == null) {
+            return def;
+        }
+        Parsing.checkRange(bytes, from, to);
+        return Parsing.toInt(bytes, from, to, def);
+    }
+
+    /**
+     * @see #toInt(CharSequence, int)
+     */
+    public static long toLong(CharSequence s, long def) {
+        return s != null ? Parsing.toLong(s, 0, s.length(), def) : def;
+    }
+
+    /**
+     * @see #toLong(CharSequence, long)
+     */
+    public static long toLong(CharSequence s, int from, int to, long def) {
+        if (s == null) {
+            return def;
+        }
+        Parsing.checkRange(s, from, to);
+        return Parsing.toLong(s, from, to, def);
+    }
+
+    /**
+     * @see #toLong(CharSequence, long)
+     */
+    public static long toLong(byte[] bytes, int from, int to, long def) {
+        if (bytes == null) {
+            return def;
+        }
+        Parsing.checkRange(bytes, from, to);
+        return Parsing.toLong(bytes, from, to, def);
+    }
+
+    /**
+     * plain decimal notation with an optional exponent; NaN and Infinity are not accepted
+     *
+     * @see #toInt(CharSequence, int)
+     */
+    public static double toDouble(CharSequence s, double def) {
+        return s != null ? Parsing.toDouble(s, 0, s.length(), def) : def;
+    }
+
+    /**
+     * @see #toDouble(CharSequence, double)
+     */
+    public static double toDouble(CharSequence s, int from, int to, double def) {
+        if (s == null) {
+            return def;
+        }
+        Parsing.checkRange(s, from, to);
+        return Parsing.toDouble(s, from, to, def);
+    }
+
+    /**
+     * @see #toDouble(CharSequence, double)
+     */
+    public static double toDouble(byte[] bytes, int from, int to, double def) {
+        if (bytes == null) {
+            return def;
+        }
+        Parsing.checkRange(bytes, from, to);
+        return Parsing.toDouble(bytes, from, to, def);
+    }
+
+    /**
+     * same syntax as {@link #toDouble(CharSequence, double)}, up to 18 digits are built without an intermediate String
+     *
+     * @see #toInt(CharSequence, int)
+     */
+    public static BigDecimal toBigDecimal(CharSequence s, BigDecimal def) {
+        return s != null ? Parsing.toBigDecimal(s, 0, s.length(), def) : def;
+    }
+
+    /**
+     * @see #toBigDecimal(CharSequence, BigDecimal)
+     */
+    public static BigDecimal toBigDecimal(CharSequence s, int from, int to, BigDecimal def) {
+        if (s == null) {
+            return def;
+        }
+        Parsing.checkRange(s, from, to);
+        return Parsing.toBigDecimal(s, from, to, def);
+    }
+
+    /**
+     * @see #toBigDecimal(CharSequence, BigDecimal)
+     */
+    public static BigDecimal toBigDecimal(byte[] bytes, int from, int to, BigDecimal def) {
+        if (bytes == null) {
+            return def;
+        }
+        Parsing.checkRange(bytes, from, to);
+        return Parsing.toBigDecimal(bytes, from, to, def);
+    }
+
+    /**
+     * "true"/"1" and "false"/"0", case-insensitive
+     *
+     * @see #toInt(CharSequence, int)
+     */
+    public static boolean toBoolean(CharSequence s, boolean def) {
+        return s != null ? Parsing.toBoolean(s, 0, s.length(), def) : def;
+    }
+
+    /**
+     * @see #toBoolean(CharSequence, boolean)
+     */
+    public static boolean toBoolean(CharSequence s, int from, int to, boolean def) {
+        if (s == null) {
+            return def;
+        }
+        Parsing.checkRange(s, from, to);
+        return Parsing.toBoolean(s, from, to, def);
+    }
+
+    /**
+     * @see #toBoolean(CharSequence, boolean)
+     */
+    public static boolean toBoolean(byte[] bytes, int from, int to, boolean def) {
+        if (bytes == null) {
+            return def;
+        }
+        Parsing.checkRange(bytes, from, to);
+        return Parsing.toBoolean(bytes, from, to, def);
+    }
 
 }
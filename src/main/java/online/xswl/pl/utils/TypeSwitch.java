@@ -0,0 +1,106 @@
+package online.xswl.pl.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+
+/**
+ * hand heterogeneous objects to the handler of their type, without casting and catching
+ * <pre>
+ *     TypeSwitch&lt;String&gt; describe = Coding.&lt;String&gt;typeSwitch()
+ *             .on(Integer.class, i -> "int " + i)
+ *             .on(CharSequence.class, s -> "text " + s)
+ *             .orElse(o -> "other")
+ *             .build();
+ *     describe.apply(1);        // "int 1"
+ *     describe.apply("a");      // "text a"
+ *     describe.apply(1L);       // "other"
+ * </pre>
+ * <p>cases are tried in the order they were added, the first assignable one wins; the decision is made once per concrete class
+ * and remembered in a {@link ClassValue}, after that a dispatch is one lookup</p>
+ * <p>that cache belongs to the switch, so build it once and keep it (a static final field, like a Pattern); a switch built
+ * per call decides every class anew and leaves one cache entry on each class it has seen until it is collected</p>
+ *
+ * @author PL
+ */
+public final class TypeSwitch<R> implements Function<Object, R> {
+
+    private final Class<?>[] types;
+
+    private final Function<Object, ? extends R>[] handlers;
+
+    private final Function<Object, ? extends R> orElse;
+
+    private final ClassValue<Function<Object, ? extends R>> resolved = new ClassValue<Function<Object, ? extends R>>() {
+        @Override
+        protected Function<Object, ? extends R> computeValue(Class<?> type) {
+            for (int i = 0; i < types.length; i++) {
+                if (types[i].isAssignableFrom(type)) {
+                    return handlers[i];
+                }
+            }
+            return orElse;
+        }
+    };
+
+    private TypeSwitch(Class<?>[] types, Function<Object, ? extends R>[] handlers, Function<Object, ? extends R> orElse) {
+        this.types = types;
+        this.handlers = handlers;
+        this.orElse = orElse;
+    }
+
+    public static <R> Builder<R> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * @return result of the matching handler; null goes to the orElse handler
+     */
+    @Override
+    public R apply(Object o) {
+        return o == null ? orElse.apply(null) : resolved.get(o.getClass()).apply(o);
+    }
+
+
+    public static final class Builder<R> {
+
+        private final List<Class<?>> types = new ArrayList<>();
+
+        private final List<Function<Object, ? extends R>> handlers = new ArrayList<>();
+
+        private Function<Object, ? extends R> orElse = o -> null;
+
+        private Builder() {}
+
+        @SuppressWarnings("unchecked")
+        public <T> Builder<R> on(Class<T> type, Function<? super T, ? extends R> handler) {
+            if (type == null || handler == null) {
+                throw new IllegalArgumentException();
+            }
+            types.add(type);
+            handlers.add((Function<Object, ? extends R>) handler);
+            return this;
+        }
+
+        /**
+         * what to do with null and with objects no case accepts, returns null if not set
+         */
+        public Builder<R> orElse(Function<Object, ? extends R> orElse) {
+            if (orElse == null) {
+                throw new IllegalArgumentException();
+            }
+            this.orElse = orElse;
+            return this;
+        }
+
+        /**
+         * build once and reuse, the resolved cases are cached per switch
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public TypeSwitch<R> build() {
+            return new TypeSwitch<>(types.toArray(new Class<?>[0]), handlers.toArray(new Function[0]), orElse);
+        }
+    }
+
+}
@@ -1,7 +1,20 @@
 package online.xswl.pl;
 
+import online.xswl.pl.Designer.Policy;
+import online.xswl.pl.utils.ExceptionBarrier.ExceptionLoggingConsumer;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 
 /**
  * @author PL
@@ -14,4 +27,47 @@ public class DesignTest {
 
     }
 
+    @Test
+    public void policyIsCopyOnWrite() {
+        Designer designer = Coding.design();
+        Policy before = designer.getPolicy();
+        ExceptionLoggingConsumer consumer = e -> {};
+        try {
+            designer.setExceptionLoggingConsumer(consumer);
+            Policy after = Designer.current();
+            assertNotSame(before, after);
+            assertSame(consumer, after.getExceptionLoggingConsumer());
+            assertSame(before.getExecutor(), after.getExecutor());
+        } finally {
+            designer.setPolicy(before);
+        }
+    }
+
+    @Test
+    public void stackTraceIsPassedAsIsUnlessLazy() {
+        Policy policy = Designer.current();
+        assertFalse(policy.isLazyStackTrace());
+        Policy lazy = policy.withLazyStackTrace(true);
+        assertTrue(lazy.isLazyStackTrace());
+        assertSame(policy.getExceptionLoggingConsumer(), lazy.getExceptionLoggingConsumer());
+        assertEquals(policy.getStackDepth(), lazy.getStackDepth());
+    }
+
+    @Test
+    public void scopedPolicyDoesNotLeak() throws Exception {
+        Policy quiet = Designer.current().withExceptionLoggingConsumer(e -> {});
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            PolicyScope.run(quiet, () -> {
+                assertSame(quiet, PolicyScope.effective());
+                Policy hopped = CompletableFuture.supplyAsync(PolicyScope::effective, PolicyScope.propagating(pool)).join();
+                assertSame(quiet, hopped);
+            });
+            assertNull(PolicyScope.current());
+            assertNull(pool.submit(PolicyScope::current).get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
 }
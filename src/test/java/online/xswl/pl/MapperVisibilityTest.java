@@ -0,0 +1,49 @@
+package online.xswl.pl;
+
+import online.xswl.pl.utils.Mapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+
+/**
+ * beans of another package and not public, which the {@link Mapper} copies through method handles
+ *
+ * @author PL
+ */
+public class MapperVisibilityTest {
+
+    static class HiddenSource {
+        public int getN() { return 7; }
+        public String getDay() { return "2020-02-03"; }
+    }
+
+    static class HiddenTarget {
+        private long n;
+        private LocalDate day;
+
+        public HiddenTarget() { }
+        public long getN() { return n; }
+        public void setN(long n) { this.n = n; }
+        public LocalDate getDay() { return day; }
+        public void setDay(LocalDate day) { this.day = day; }
+    }
+
+    @Test
+    public void nonPublicBeansAreMappedToo() {
+        HiddenTarget copied = Coding.mapper(HiddenSource.class, HiddenTarget.class).map(new HiddenSource());
+        assertEquals(7L, copied.getN());
+        assertNull(copied.getDay());
+
+        HiddenTarget converted = Coding.mapperBuilder(HiddenSource.class, HiddenTarget.class)
+                .convert("day", LocalDate.class, (String s) -> LocalDate.parse(s))
+                .build()
+                .map(new HiddenSource());
+        assertEquals(7L, converted.getN());
+        assertEquals(LocalDate.of(2020, 2, 3), converted.getDay());
+    }
+
+}
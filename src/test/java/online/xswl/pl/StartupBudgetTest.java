@@ -0,0 +1,108 @@
+package online.xswl.pl;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * cold start of the Coding facade, measured in a fresh JVM
+ * <p>a call that throws nothing must not load the logger, the Designer or anything else it does not need</p>
+ *
+ * @author PL
+ */
+public class StartupBudgetTest {
+
+    /**
+     * time from main() to the first result, generous enough for a loaded CI machine; checked by the startupBudget task only
+     */
+    private static final long MAX_FIRST_CALL_MILLIS = 300;
+
+    /**
+     * classes of this library loaded by the first call, lambdas included; the JDK's own (about a hundred for the first
+     * lambda of a JVM) depend on the JDK version and its class-data sharing archive, so they are not counted
+     */
+    private static final int MAX_LOADED_CLASSES = 12;
+
+    private static final String OWN_CLASS = "] online.xswl.pl.";
+
+    private static final String MARK = "--first-call--";
+
+    public static class FirstCall {
+        public static void main(String[] args) {
+            System.out.println(MARK);
+            long start = System.nanoTime();
+            Integer one = Coding.loggingGetOrNull(() -> 1);
+            long nanos = System.nanoTime() - start;
+            System.out.println(MARK);
+            System.out.println(one + " " + nanos);
+        }
+    }
+
+    /**
+     * what the forked JVM reported: classes loaded by the first call, and how long it took
+     */
+    private static final class FirstCallRun {
+        final List<String> loaded = new ArrayList<>();
+        long nanos = -1;
+    }
+
+    private static FirstCallRun runFirstCall() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-Xlog:class+load=info:stdout",
+                "-cp", System.getProperty("java.class.path"), FirstCall.class.getName())
+                .redirectErrorStream(true)
+                .start();
+        FirstCallRun run = new FirstCallRun();
+        String result = null;
+        int marks = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line; (line = reader.readLine()) != null; ) {
+                if (line.equals(MARK)) {
+                    marks++;
+                } else if (marks == 1 && line.contains("[class,load]")) {
+                    run.loaded.add(line);
+                } else if (marks == 2 && !line.startsWith("[")) {
+                    result = line;
+                }
+            }
+        }
+        assertEquals(0, process.waitFor());
+        assertTrue(result != null && result.startsWith("1 "), String.valueOf(result));
+        run.nanos = Long.parseLong(result.substring(2));
+        return run;
+    }
+
+    @Test
+    public void firstCallLoadsOnlyWhatItNeeds() throws Exception {
+        List<String> loaded = runFirstCall().loaded;
+        long own = loaded.stream().filter(line -> line.contains(OWN_CLASS)).count();
+        assertTrue(own <= MAX_LOADED_CLASSES, String.join("\n", loaded));
+        for (String line : loaded) {
+            assertFalse(line.contains("org.slf4j."), line);
+            assertFalse(line.contains("online.xswl.pl.Designer"), line);
+            assertFalse(line.contains("online.xswl.pl.PolicyScope"), line);
+        }
+    }
+
+    /**
+     * wall-clock, so not part of the regular test task; run with {@code gradle startupBudget}
+     */
+    @Test
+    @Tag("timing")
+    public void firstCallStaysWithinTimeBudget() throws Exception {
+        long millis = runFirstCall().nanos / 1_000_000;
+        assertTrue(millis <= MAX_FIRST_CALL_MILLIS, millis + " ms");
+    }
+
+}
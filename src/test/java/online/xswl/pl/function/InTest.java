@@ -0,0 +1,112 @@
+package online.xswl.pl.function;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author PL
+ */
+public class InTest {
+
+    @Test
+    public void strings() {
+        Predicate<String> asia = Fn.in("CN", "JP", "KR", "SG", "JP");
+        assertTrue(asia instanceof In.PerfectStrings);
+        assertTrue(asia.test("JP"));
+        assertTrue(asia.test(new String("SG")));
+        assertFalse(asia.test("US"));
+        assertFalse(asia.test(""));
+        assertFalse(asia.test(null));
+
+        String[] many = IntStream.range(0, 100).mapToObj(i -> "k" + i).toArray(String[]::new);
+        Predicate<String> large = Fn.in(many);
+        assertTrue(large instanceof In.Hashed);
+        for (String s : many) {
+            assertTrue(large.test(s));
+        }
+        assertFalse(large.test("k100"));
+    }
+
+    @Test
+    public void nullIsAMemberOnlyIfGiven() {
+        assertTrue(Fn.in("a", null).test(null));
+        assertTrue(Fn.in("a", null).test("a"));
+        assertTrue(Fn.in(1, null).test(null));
+        assertFalse(Fn.in(1, 2).test(null));
+        assertTrue(Fn.identityIn((Object) null).test(null));
+    }
+
+    @Test
+    public void empty() {
+        assertFalse(Fn.in().test("a"));
+        assertFalse(Fn.in().test(null));
+        assertFalse(Fn.identityIn().test("a"));
+        assertFalse(Fn.intIn().test(0));
+        assertFalse(Fn.longIn().test(0L));
+        assertThrows(IllegalArgumentException.class, () -> Fn.in((Object[]) null));
+        assertThrows(IllegalArgumentException.class, () -> Fn.intIn((int[]) null));
+        assertThrows(IllegalArgumentException.class, () -> Fn.longIn((long[]) null));
+    }
+
+    @Test
+    public void otherTypesAgainstStrings() {
+        Predicate<Object> strings = Fn.in((Object) "1", "a", "b");
+        assertFalse(strings.test(1));
+        assertFalse(strings.test('a'));
+        assertFalse(strings.test(new StringBuilder("a")));
+        assertTrue(strings.test("1"));
+
+        Predicate<Object> mixed = Fn.in("1", 1, 2L);
+        assertTrue(mixed instanceof In.Hashed);
+        assertTrue(mixed.test(1));
+        assertTrue(mixed.test("1"));
+        assertTrue(mixed.test(2L));
+        assertFalse(mixed.test(2));
+    }
+
+    @Test
+    public void identity() {
+        String a = new String("a");
+        Predicate<String> same = Fn.identityIn(a, a);
+        assertTrue(same.test(a));
+        assertFalse(same.test(new String("a")));
+        assertTrue(Fn.in(a).test(new String("a")));
+    }
+
+    @Test
+    public void zeroAndDuplicatesOfPrimitives() {
+        IntPredicate ints = Fn.intIn(0, 3, 3, -1, Integer.MIN_VALUE);
+        assertTrue(ints.test(0));
+        assertTrue(ints.test(3));
+        assertTrue(ints.test(-1));
+        assertTrue(ints.test(Integer.MIN_VALUE));
+        assertFalse(ints.test(1));
+        assertFalse(Fn.intIn(1, 2).test(0));
+
+        LongPredicate longs = Fn.longIn(0L, 1L << 40, 1L << 40, -1L);
+        assertTrue(longs.test(0L));
+        assertTrue(longs.test(1L << 40));
+        assertTrue(longs.test(-1L));
+        assertFalse(longs.test(1L));
+        // same low 32 bits, different high ones
+        assertFalse(longs.test((1L << 40) | 1L << 33));
+        assertFalse(Fn.longIn(1L, 2L).test(0L));
+
+        int[] many = IntStream.range(1, 1000).map(i -> i * 31).toArray();
+        IntPredicate large = Fn.intIn(many);
+        for (int i : many) {
+            assertTrue(large.test(i));
+        }
+        assertFalse(large.test(30));
+    }
+
+}
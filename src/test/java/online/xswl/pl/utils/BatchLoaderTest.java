@@ -0,0 +1,206 @@
+package online.xswl.pl.utils;
+
+import online.xswl.pl.Designer;
+import online.xswl.pl.Designer.Policy;
+import online.xswl.pl.PolicyScope;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author PL
+ */
+public class BatchLoaderTest {
+
+    private final List<Throwable> logged = new CopyOnWriteArrayList<>();
+
+    private final List<Set<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    /**
+     * value of key k is "v" + k, key 0 has none
+     */
+    private final Function<Set<Integer>, Map<Integer, String>> values = keys -> {
+        batches.add(new HashSet<>(keys));
+        Map<Integer, String> map = new HashMap<>();
+        for (Integer key : keys) {
+            if (key != 0) {
+                map.put(key, "v" + key);
+            }
+        }
+        return map;
+    };
+
+    private Policy policy(ExecutorService pool) {
+        return Designer.current().withExceptionLoggingConsumer(logged::add).withExecutor(pool);
+    }
+
+    private static <V> V join(CompletableFuture<V> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void identicalKeysShareOneLoad() throws Exception {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            BatchLoader<Integer, String> loader = BatchLoader.of(values, Duration.ofMillis(100), 100);
+            PolicyScope.run(policy(pool), () -> {
+                CompletableFuture<String> one = loader.loadAsync(1);
+                // joined, but what another caller does to its future does not reach this one
+                CompletableFuture<String> cancelled = loader.loadAsync(1);
+                CompletableFuture<String> overwritten = loader.loadAsync(1);
+                assertNotSame(one, cancelled);
+                cancelled.cancel(true);
+                overwritten.complete("x");
+                CompletableFuture<String> two = loader.loadAsync(2);
+                CompletableFuture<String> none = loader.loadAsync(0);
+                assertTrue(batches.isEmpty());
+                assertEquals("v1", ExceptionBarrier.throwingGet(() -> join(one)));
+                assertEquals("v2", ExceptionBarrier.throwingGet(() -> join(two)));
+                assertNull(ExceptionBarrier.throwingGet(() -> join(none)));
+                assertNull(ExceptionBarrier.throwingGet(() -> join(loader.loadAsync(null))));
+            });
+            assertEquals(1, batches.size());
+            assertEquals(new HashSet<>(Arrays.asList(0, 1, 2)), batches.get(0));
+            assertTrue(logged.isEmpty());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void windowClosesTheBatch() {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            BatchLoader<Integer, String> loader = BatchLoader.of(values, Duration.ofMillis(50), 100);
+            PolicyScope.run(policy(pool), () -> {
+                long start = System.nanoTime();
+                assertEquals("v1", loader.load(1));
+                assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+                // a later key opens a new batch, the finished one is not reused
+                assertEquals("v1", loader.load(1));
+            });
+            assertEquals(2, batches.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void fullBatchIsSentAtOnce() throws Exception {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            BatchLoader<Integer, String> loader = BatchLoader.of(values, Duration.ofSeconds(30), 2);
+            CompletableFuture<String> one = PolicyScope.get(policy(pool), () -> loader.loadAsync(1));
+            CompletableFuture<String> two = PolicyScope.get(policy(pool), () -> loader.loadAsync(2));
+            CompletableFuture<String> three = PolicyScope.get(policy(pool), () -> loader.loadAsync(3));
+            assertEquals("v1", join(one));
+            assertEquals("v2", join(two));
+            assertEquals(1, batches.size());
+            assertFalse(three.isDone());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failingBatchGivesNullToEveryCaller() throws Exception {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            BatchLoader<Integer, String> loader = BatchLoader.of(keys -> {
+                throw new IllegalStateException("down");
+            }, Duration.ofMillis(10), 100);
+            CompletableFuture<String> one = PolicyScope.get(policy(pool), () -> loader.loadAsync(1));
+            CompletableFuture<String> two = PolicyScope.get(policy(pool), () -> loader.loadAsync(2));
+            assertNull(join(one));
+            assertNull(join(two));
+            assertEquals(1, logged.size());
+            assertTrue(logged.get(0) instanceof IllegalStateException);
+            // nothing stays in flight, the key is asked for again
+            assertNull(PolicyScope.get(policy(pool), () -> loader.load(1)));
+            assertEquals(2, logged.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejectingExecutorGivesNullInsteadOfHanging() throws Exception {
+        Policy rejecting = Designer.current().withExceptionLoggingConsumer(logged::add).withExecutor(command -> {
+            throw new RejectedExecutionException("full");
+        });
+        BatchLoader<Integer, String> windowed = BatchLoader.of(values, Duration.ofMillis(10), 100);
+        assertNull(join(PolicyScope.get(rejecting, () -> windowed.loadAsync(1))));
+        BatchLoader<Integer, String> full = BatchLoader.of(values, Duration.ofSeconds(30), 1);
+        assertNull(join(PolicyScope.get(rejecting, () -> full.loadAsync(1))));
+        assertNull(PolicyScope.get(rejecting, () -> full.load(1)));
+        assertEquals(3, logged.size());
+        for (Throwable e : logged) {
+            assertTrue(e instanceof RejectedExecutionException);
+        }
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    public void loadWaitsAtMostThePolicyTimeout() {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            BatchLoader<Integer, String> slow = BatchLoader.of(keys -> {
+                ExceptionBarrier.throwingExecute(() -> Thread.sleep(10_000));
+                return values.apply(keys);
+            }, Duration.ofMillis(1), 100);
+            Policy impatient = policy(pool).withTimeout(Duration.ofMillis(100));
+            assertNull(PolicyScope.get(impatient, () -> slow.load(1)));
+            assertEquals(1, logged.size());
+            assertTrue(logged.get(0) instanceof TimeoutException);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void batchRunsWithTheCallersPolicy() {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            Policy scoped = policy(pool);
+            BatchLoader<Integer, Policy> loader = BatchLoader.of(keys -> {
+                Map<Integer, Policy> map = new HashMap<>();
+                keys.forEach(key -> map.put(key, PolicyScope.current()));
+                return map;
+            }, Duration.ofMillis(1), 100);
+            assertSame(scoped, PolicyScope.get(scoped, () -> loader.load(1)));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> BatchLoader.of(null));
+        assertThrows(IllegalArgumentException.class, () -> BatchLoader.of(values, Duration.ofMillis(-1), 1));
+        assertThrows(IllegalArgumentException.class, () -> BatchLoader.of(values, Duration.ofMillis(1), 0));
+    }
+
+}
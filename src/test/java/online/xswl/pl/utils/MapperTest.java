@@ -0,0 +1,255 @@
+package online.xswl.pl.utils;
+
+import online.xswl.pl.Designer;
+import online.xswl.pl.PolicyScope;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author PL
+ */
+public class MapperTest {
+
+    public static class UserDTO {
+        private int age;
+        private Integer score;
+        private String birthday;
+        private String password;
+        private boolean active;
+
+        public int getAge() { return age; }
+        public void setAge(int age) { this.age = age; }
+        public Integer getScore() { return score; }
+        public void setScore(Integer score) { this.score = score; }
+        public String getBirthday() { return birthday; }
+        public void setBirthday(String birthday) { this.birthday = birthday; }
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+        public boolean isActive() { return active; }
+        public void setActive(boolean active) { this.active = active; }
+    }
+
+    public static class User {
+        private Integer age;
+        private int score = -1;
+        private LocalDate birthday;
+        private String password;
+        private Boolean active;
+
+        public Integer getAge() { return age; }
+        public void setAge(Integer age) { this.age = age; }
+        public int getScore() { return score; }
+        public void setScore(int score) { this.score = score; }
+        public LocalDate getBirthday() { return birthday; }
+        public void setBirthday(LocalDate birthday) { this.birthday = birthday; }
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+        public Boolean getActive() { return active; }
+        public void setActive(Boolean active) { this.active = active; }
+    }
+
+    public static class Base<V> {
+        private V val;
+
+        public V getVal() { return val; }
+        public void setVal(V val) { this.val = val; }
+    }
+
+    /**
+     * overrides the generic setter, the compiler adds a setVal(Object) bridge
+     */
+    public static class StringTarget extends Base<String> {
+        @Override
+        public void setVal(String val) { super.setVal(val); }
+    }
+
+    /**
+     * only the erased setVal(Object) of Base
+     */
+    public static class InheritedStringTarget extends Base<String> {
+    }
+
+    public static class IntegerSource extends Base<Integer> {
+    }
+
+    public static class IntSource {
+        public int getVal() { return 7; }
+    }
+
+    public static class TextSource {
+        public String getVal() { return "text"; }
+    }
+
+    public static class Overloaded {
+        private Object val;
+
+        public Object getVal() { return val; }
+        public void setVal(Object val) { this.val = "object"; }
+        public void setVal(long val) { this.val = "long"; }
+        public void setVal(String val) { this.val = "string"; }
+    }
+
+    public static class LongTarget {
+        private long val;
+
+        public long getVal() { return val; }
+        public void setVal(long val) { this.val = val; }
+    }
+
+    public static class DayText {
+        public String getDay() { return "2020-02-03"; }
+    }
+
+    public static class OverloadedDay {
+        private String day;
+
+        public String getDay() { return day; }
+        public void setDay(String day) { this.day = "string " + day; }
+        public void setDay(LocalDate day) { this.day = "date " + day; }
+    }
+
+    private static UserDTO dto() {
+        UserDTO dto = new UserDTO();
+        dto.setAge(30);
+        dto.setBirthday("1990-01-02");
+        dto.setPassword("secret");
+        dto.setActive(true);
+        return dto;
+    }
+
+    @Test
+    public void boxesAndUnboxes() {
+        User user = Mapper.of(UserDTO.class, User.class).map(dto());
+        assertEquals(Integer.valueOf(30), user.getAge());
+        // null score cannot go into the int, the default stays
+        assertEquals(-1, user.getScore());
+        assertEquals(Boolean.TRUE, user.getActive());
+        assertEquals("secret", user.getPassword());
+        // String into LocalDate needs a converter
+        assertNull(user.getBirthday());
+        assertSame(Mapper.of(UserDTO.class, User.class), Mapper.of(UserDTO.class, User.class));
+
+        UserDTO scored = dto();
+        scored.setScore(5);
+        assertEquals(5, Mapper.of(UserDTO.class, User.class).map(scored).getScore());
+    }
+
+    @Test
+    public void convertsAndIgnores() {
+        Mapper<UserDTO, User> mapper = Mapper.builder(UserDTO.class, User.class)
+                .convert("birthday", (String s) -> LocalDate.parse(s))
+                .ignore("password")
+                .build();
+        User user = mapper.map(dto());
+        assertEquals(LocalDate.of(1990, 1, 2), user.getBirthday());
+        assertNull(user.getPassword());
+        assertEquals(Integer.valueOf(30), user.getAge());
+    }
+
+    @Test
+    public void failingConverterLeavesTheFieldAlone() {
+        List<Throwable> logged = new ArrayList<>();
+        Mapper<UserDTO, User> mapper = Mapper.builder(UserDTO.class, User.class)
+                .convert("birthday", (String s) -> LocalDate.parse(s))
+                .convert("password", (String s) -> null)
+                .build();
+        UserDTO dto = dto();
+        dto.setBirthday("not a date");
+        User user = new User();
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        user.setPassword("old");
+        PolicyScope.run(Designer.current().withExceptionLoggingConsumer(logged::add), () -> mapper.map(dto, user));
+        assertEquals(LocalDate.of(2000, 1, 1), user.getBirthday());
+        assertEquals(1, logged.size());
+        // a converter returning null is not a failure
+        assertNull(user.getPassword());
+        assertEquals(Integer.valueOf(30), user.getAge());
+    }
+
+    @Test
+    public void unknownPropertyToConvertIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Mapper.builder(UserDTO.class, User.class)
+                .convert("birthdate", (String s) -> LocalDate.parse(s))
+                .build());
+        assertThrows(IllegalArgumentException.class, () -> Mapper.builder(IntSource.class, User.class)
+                .convert("val", (Integer i) -> i)
+                .build());
+    }
+
+    @Test
+    public void bridgesAndErasedGenericsAreNotMistakenForTypes() {
+        StringTarget overridden = Mapper.of(IntSource.class, StringTarget.class).map(new IntSource());
+        assertNull(overridden.getVal());
+        InheritedStringTarget inherited = Mapper.of(IntSource.class, InheritedStringTarget.class).map(new IntSource());
+        assertNull(inherited.getVal());
+
+        assertEquals("text", Mapper.of(TextSource.class, StringTarget.class).map(new TextSource()).getVal());
+        assertEquals("text", Mapper.of(TextSource.class, InheritedStringTarget.class).map(new TextSource()).getVal());
+
+        IntegerSource source = new IntegerSource();
+        source.setVal(3);
+        assertEquals(Integer.valueOf(3), Mapper.of(IntegerSource.class, Base.class).map(source).getVal());
+        assertNull(Mapper.of(IntegerSource.class, StringTarget.class).map(source).getVal());
+    }
+
+    @Test
+    public void overloadsAreChosenByType() {
+        assertEquals("string", Mapper.of(TextSource.class, Overloaded.class).map(new TextSource()).getVal());
+        assertEquals("object", Mapper.of(IntSource.class, Overloaded.class).map(new IntSource()).getVal());
+        assertEquals("object", Mapper.of(IntegerSource.class, Overloaded.class).map(new IntegerSource()).getVal());
+    }
+
+    @Test
+    public void primitivesAreWidened() {
+        assertEquals(7L, Mapper.of(IntSource.class, LongTarget.class).map(new IntSource()).getVal());
+        IntegerSource boxed = new IntegerSource();
+        boxed.setVal(3);
+        assertEquals(3L, Mapper.of(IntegerSource.class, LongTarget.class).map(boxed).getVal());
+        // a null Integer leaves the long alone
+        assertEquals(0L, Mapper.of(IntegerSource.class, LongTarget.class).map(new IntegerSource()).getVal());
+    }
+
+    @Test
+    public void convertersChooseTheSetterByResultType() {
+        Mapper<DayText, OverloadedDay> typed = Mapper.builder(DayText.class, OverloadedDay.class)
+                .convert("day", LocalDate.class, (String s) -> LocalDate.parse(s))
+                .build();
+        assertEquals("date 2020-02-03", typed.map(new DayText()).getDay());
+        assertThrows(IllegalArgumentException.class, () -> Mapper.builder(DayText.class, OverloadedDay.class)
+                .convert("day", Integer.class, (String s) -> s.length())
+                .build());
+
+        // untyped, the setter follows the getter and a result it cannot take is skipped like a failure
+        List<Throwable> logged = new ArrayList<>();
+        Mapper<DayText, OverloadedDay> untyped = Mapper.builder(DayText.class, OverloadedDay.class)
+                .convert("day", (String s) -> LocalDate.parse(s))
+                .build();
+        OverloadedDay day = PolicyScope.get(Designer.current().withExceptionLoggingConsumer(logged::add),
+                () -> untyped.map(new DayText()));
+        assertNull(day.getDay());
+        assertEquals(1, logged.size());
+        assertTrue(logged.get(0) instanceof ClassCastException);
+    }
+
+    @Test
+    public void mapAll() {
+        List<User> users = Mapper.of(UserDTO.class, User.class).mapAll(Arrays.asList(dto(), null, dto()));
+        assertEquals(3, users.size());
+        assertEquals(Integer.valueOf(30), users.get(0).getAge());
+        assertNull(users.get(1));
+        assertEquals(Integer.valueOf(30), users.get(2).getAge());
+        assertTrue(Mapper.of(UserDTO.class, User.class).mapAll(null).isEmpty());
+    }
+
+}
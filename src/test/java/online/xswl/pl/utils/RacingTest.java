@@ -0,0 +1,209 @@
+package online.xswl.pl.utils;
+
+import online.xswl.pl.Designer;
+import online.xswl.pl.Designer.Policy;
+import online.xswl.pl.PolicyScope;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author PL
+ */
+public class RacingTest {
+
+    private final List<Throwable> logged = new CopyOnWriteArrayList<>();
+
+    private <T> T withPool(Supplier<T> supplier) {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            return PolicyScope.get(policy().withExecutor(pool), supplier);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Policy policy() {
+        return Designer.current().withExceptionLoggingConsumer(logged::add);
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    @Test
+    public void firstSuccessWinsAndLosersAreCancelled() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        String result = withPool(() -> ExceptionBarrier.firstSuccess(
+                () -> {
+                    try {
+                        sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                    return "slow";
+                },
+                () -> "fast"));
+        assertEquals("fast", result);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(logged.isEmpty());
+    }
+
+    @Test
+    public void allFailedIsLoggedOnceWithTheOthersSuppressed() {
+        String result = withPool(() -> ExceptionBarrier.<String>firstSuccess(
+                () -> {
+                    throw new IllegalStateException("a");
+                },
+                () -> {
+                    throw new IllegalArgumentException("b");
+                },
+                () -> {
+                    throw new UnsupportedOperationException("c");
+                }));
+        assertNull(result);
+        assertEquals(1, logged.size());
+        assertEquals(2, logged.get(0).getSuppressed().length);
+    }
+
+    @Test
+    public void backupStartsAfterTheDelay() {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicLong primaryStart = new AtomicLong();
+        AtomicLong backupStart = new AtomicLong();
+        String result = withPool(() -> ExceptionBarrier.hedged(() -> {
+            if (calls.getAndIncrement() == 0) {
+                primaryStart.set(System.nanoTime());
+                sleep(10_000);
+                return "primary";
+            }
+            backupStart.set(System.nanoTime());
+            return "backup";
+        }, Duration.ofMillis(200)));
+        assertEquals("backup", result);
+        long gap = TimeUnit.NANOSECONDS.toMillis(backupStart.get() - primaryStart.get());
+        assertTrue(gap >= 150, gap + " ms");
+    }
+
+    @Test
+    public void backupStartsAtOnceWhenThePrimaryFails() {
+        AtomicInteger calls = new AtomicInteger();
+        long start = System.nanoTime();
+        String result = withPool(() -> ExceptionBarrier.hedged(() -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new IllegalStateException("primary");
+            }
+            return "backup";
+        }, Duration.ofSeconds(10)));
+        assertEquals("backup", result);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(logged.isEmpty());
+    }
+
+    @Test
+    public void rejectedLaunchesCountAsFailures() {
+        Policy rejecting = policy().withExecutor(command -> {
+            throw new RejectedExecutionException("full");
+        });
+        assertNull(PolicyScope.get(rejecting, () -> ExceptionBarrier.firstSuccess(() -> "a", () -> "b")));
+        assertEquals(1, logged.size());
+        assertTrue(logged.get(0) instanceof RejectedExecutionException);
+
+        // the primary runs and fails, the backup is rejected: no hang
+        logged.clear();
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            Policy once = policy().withExecutor(command -> {
+                if (accepted.getAndIncrement() > 0) {
+                    throw new RejectedExecutionException("full");
+                }
+                pool.execute(command);
+            });
+            String result = PolicyScope.get(once, () -> ExceptionBarrier.<String>hedged(() -> {
+                throw new IllegalStateException("primary");
+            }, Duration.ofMillis(50)));
+            assertNull(result);
+            assertEquals(1, logged.size());
+            assertEquals(1, logged.get(0).getSuppressed().length);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givesUpAfterThePolicyTimeout() {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            Policy impatient = policy().withExecutor(pool).withTimeout(Duration.ofMillis(100));
+            String result = PolicyScope.get(impatient, () -> ExceptionBarrier.firstSuccess(() -> {
+                sleep(10_000);
+                return "late";
+            }));
+            assertNull(result);
+            assertEquals(1, logged.size());
+            assertTrue(logged.get(0) instanceof TimeoutException);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void attemptsRunWithTheCallersPolicy() {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            Policy scoped = policy().withExecutor(pool);
+            Policy seen = PolicyScope.get(scoped, () -> ExceptionBarrier.firstSuccess(PolicyScope::current));
+            assertSame(scoped, seen);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void hedgerLearnsFromThePrimaryAlone() {
+        Hedger hedger = Hedger.of(0.5, Duration.ofMillis(5));
+        for (int i = 0; i < 32; i++) {
+            AtomicInteger calls = new AtomicInteger();
+            String result = withPool(() -> hedger.get(() -> {
+                if (calls.getAndIncrement() > 0) {
+                    return "backup";
+                }
+                // ignores the interrupt of the losing side and keeps going, like blocking I/O would
+                long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+                for (long left; (left = end - System.nanoTime()) > 0; ) {
+                    LockSupport.parkNanos(left);
+                }
+                return "primary";
+            }));
+            assertEquals("backup", result);
+        }
+        // the losing primaries record themselves when they finish, after the race
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hedger.getDelay().toMillis() < 40 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        // the race itself took about 5 ms each time
+        assertTrue(hedger.getDelay().toMillis() >= 40, hedger.getDelay().toString());
+    }
+
+}
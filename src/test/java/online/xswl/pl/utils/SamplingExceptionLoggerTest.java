@@ -0,0 +1,153 @@
+package online.xswl.pl.utils;
+
+import online.xswl.pl.Coding;
+import online.xswl.pl.Designer;
+import online.xswl.pl.PolicyScope;
+import online.xswl.pl.utils.SamplingExceptionLogger.Failure;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author PL
+ */
+public class SamplingExceptionLoggerTest {
+
+    private static final List<Supplier<RuntimeException>> DISTINCT = Arrays.asList(
+            IllegalStateException::new, IllegalArgumentException::new, UnsupportedOperationException::new,
+            ArithmeticException::new, NullPointerException::new, IndexOutOfBoundsException::new,
+            ArrayStoreException::new, ClassCastException::new, NegativeArraySizeException::new,
+            SecurityException::new, ConcurrentModificationException::new, NoSuchElementException::new);
+
+    @Test
+    public void samplesAtTheGivenRate() {
+        AtomicInteger logged = new AtomicInteger();
+        SamplingExceptionLogger none = SamplingExceptionLogger.of(e -> logged.incrementAndGet(), 0, 4);
+        SamplingExceptionLogger all = SamplingExceptionLogger.of(e -> logged.incrementAndGet(), 1, 4);
+        SamplingExceptionLogger some = SamplingExceptionLogger.of(e -> logged.incrementAndGet(), 0.25, 4);
+        RuntimeException ex = new IllegalStateException();
+        for (int i = 0; i < 100; i++) {
+            none.logging(ex);
+        }
+        assertEquals(0, logged.get());
+        for (int i = 0; i < 100; i++) {
+            all.logging(ex);
+        }
+        assertEquals(100, logged.get());
+        logged.set(0);
+        for (int i = 0; i < 20_000; i++) {
+            some.logging(ex);
+        }
+        assertTrue(logged.get() > 4_000 && logged.get() < 6_000, String.valueOf(logged.get()));
+        assertEquals(20_000, some.recent().get(0).getCount());
+    }
+
+    @Test
+    public void countsRepeatsOfOneFailure() {
+        SamplingExceptionLogger sampler = SamplingExceptionLogger.of(e -> {}, 0, 8);
+        for (int i = 0; i < 100; i++) {
+            sampler.logging(new IllegalStateException("attempt " + i));
+        }
+        sampler.logging(new IllegalArgumentException());
+        sampler.logging(null);
+        List<Failure> recent = sampler.recent();
+        assertEquals(2, recent.size());
+        Failure repeated = recent.get(0).getCount() == 100 ? recent.get(0) : recent.get(1);
+        assertEquals(IllegalStateException.class.getName(), repeated.getType());
+        assertEquals(100, repeated.getCount());
+        assertEquals("attempt 0", repeated.getMessage());
+        assertEquals(SamplingExceptionLoggerTest.class.getName(), repeated.getSite().getClassName());
+
+        sampler.clear();
+        assertTrue(sampler.recent().isEmpty());
+    }
+
+    @Test
+    public void keepsEveryDistinctFailureUpToCapacity() {
+        SamplingExceptionLogger sampler = SamplingExceptionLogger.of(e -> {}, 0, DISTINCT.size());
+        for (int round = 0; round < 2; round++) {
+            for (Supplier<RuntimeException> failure : DISTINCT) {
+                sampler.logging(failure.get());
+            }
+        }
+        List<Failure> recent = sampler.recent();
+        assertEquals(DISTINCT.size(), recent.size());
+        for (Failure failure : recent) {
+            assertEquals(2, failure.getCount());
+        }
+    }
+
+    @Test
+    public void staysWithinCapacity() {
+        assertEquals(1, SamplingExceptionLogger.of(e -> {}, 0, 1).getCapacity());
+        assertEquals(5, SamplingExceptionLogger.of(e -> {}, 0, 5).getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> SamplingExceptionLogger.of(e -> {}, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> SamplingExceptionLogger.of(e -> {}, 1.5, 4));
+
+        SamplingExceptionLogger sampler = SamplingExceptionLogger.of(e -> {}, 0, 5);
+        for (int round = 0; round < 3; round++) {
+            for (Supplier<RuntimeException> failure : DISTINCT) {
+                sampler.logging(failure.get());
+                assertTrue(sampler.recent().size() <= 5);
+            }
+        }
+        assertEquals(5, sampler.recent().size());
+        String last = DISTINCT.get(DISTINCT.size() - 1).get().getClass().getName();
+        assertTrue(sampler.recent().stream().anyMatch(f -> f.getType().equals(last)));
+    }
+
+    @Test
+    public void keysOnTheCallerNotOnTheLibrary() {
+        SamplingExceptionLogger sampler = SamplingExceptionLogger.of(e -> {}, 0, 8);
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            PolicyScope.run(Designer.current().withExceptionLoggingConsumer(sampler).withExecutor(pool), () -> {
+                for (int i = 0; i < 3; i++) {
+                    Coding.<String>firstSuccess(() -> {
+                        throw new IllegalStateException("a");
+                    });
+                }
+                Coding.<String>firstSuccess(() -> {
+                    throw new IllegalStateException("b");
+                });
+                // logged on a pool thread, where no caller frame is left
+                BatchLoader<Integer, String> one = BatchLoader.of(keys -> {
+                    throw new IllegalStateException("c");
+                }, Duration.ofMillis(1), 10);
+                BatchLoader<Integer, String> two = BatchLoader.of(keys -> {
+                    throw new IllegalStateException("d");
+                }, Duration.ofMillis(1), 10);
+                one.load(1);
+                one.load(2);
+                two.load(1);
+            });
+        } finally {
+            pool.shutdownNow();
+        }
+        List<Failure> recent = sampler.recent();
+        assertEquals(4, recent.size());
+        long[] counts = new long[5];
+        for (Failure failure : recent) {
+            assertEquals(SamplingExceptionLoggerTest.class.getName(), failure.getSite().getClassName());
+            counts[(int) failure.getCount()]++;
+        }
+        // "a" three times, "c" twice, "b" and "d" once
+        assertEquals(1, counts[3]);
+        assertEquals(1, counts[2]);
+        assertEquals(2, counts[1]);
+    }
+
+}
@@ -0,0 +1,55 @@
+package online.xswl.pl.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author PL
+ */
+public class TransformerTest {
+
+    @Test
+    public void toInt() {
+        assertEquals(42, Transformer.toInt(" 42 ", 0));
+        assertEquals(-2147483648, Transformer.toInt("-2147483648", 0));
+        assertEquals(-1, Transformer.toInt("2147483648", -1));
+        assertEquals(-1, Transformer.toInt("4x", -1));
+        assertEquals(-1, Transformer.toInt(" undefined ", -1));
+        assertEquals(-1, Transformer.toInt(null, -1));
+        assertEquals(23, Transformer.toInt("a=23;", 2, 4, 0));
+        assertEquals(23, Transformer.toInt("a=23;".getBytes(StandardCharsets.US_ASCII), 2, 4, 0));
+    }
+
+    @Test
+    public void toLong() {
+        assertEquals(Long.MAX_VALUE, Transformer.toLong("9223372036854775807", 0L));
+        assertEquals(0L, Transformer.toLong("9223372036854775808", 0L));
+    }
+
+    @Test
+    public void toDecimal() {
+        assertEquals(0.1, Transformer.toDouble("0.1", -1));
+        assertEquals(1.5e-7, Transformer.toDouble("15e-8", -1));
+        assertEquals(Double.parseDouble("123456789012345678901234"), Transformer.toDouble("123456789012345678901234", -1));
+        assertEquals(-1, Transformer.toDouble("NaN", -1));
+        assertEquals(new BigDecimal("1.50"), Transformer.toBigDecimal(" 1.50", null));
+        assertEquals(new BigDecimal("-12345678901234567890.5"), Transformer.toBigDecimal("-12345678901234567890.5", null));
+        assertNull(Transformer.toBigDecimal("1.2.3", null));
+    }
+
+    @Test
+    public void toBoolean() {
+        assertTrue(Transformer.toBoolean(" TRUE ", false));
+        assertFalse(Transformer.toBoolean("0", true));
+        assertTrue(Transformer.toBoolean("null", true));
+    }
+
+}
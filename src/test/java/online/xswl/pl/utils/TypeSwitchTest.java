@@ -0,0 +1,86 @@
+package online.xswl.pl.utils;
+
+import online.xswl.pl.Designer;
+import online.xswl.pl.PolicyScope;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author PL
+ */
+public class TypeSwitchTest {
+
+    private static final TypeSwitch<String> DESCRIBE = ExceptionBarrier.<String>typeSwitch()
+            .on(Integer.class, i -> "int " + i)
+            .on(Number.class, n -> "number " + n)
+            .on(CharSequence.class, s -> "text " + s)
+            .on(String.class, s -> "unreachable")
+            .orElse(o -> "other " + o)
+            .build();
+
+    @Test
+    public void firstMatchingCaseWins() {
+        assertEquals("int 1", DESCRIBE.apply(1));
+        assertEquals("number 1", DESCRIBE.apply(1L));
+        assertEquals("text a", DESCRIBE.apply("a"));
+        assertEquals("text b", DESCRIBE.apply(new StringBuilder("b")));
+        // answered from the cache the second time
+        assertEquals("int 2", DESCRIBE.apply(2));
+    }
+
+    @Test
+    public void nullAndUnmatchedGoToOrElse() {
+        assertEquals("other null", DESCRIBE.apply(null));
+        assertEquals("other true", DESCRIBE.apply(true));
+
+        TypeSwitch<String> noOrElse = TypeSwitch.<String>builder().on(Integer.class, i -> "int").build();
+        assertNull(noOrElse.apply("a"));
+        assertNull(noOrElse.apply(null));
+        assertThrows(IllegalArgumentException.class, () -> TypeSwitch.<String>builder().on(null, o -> ""));
+        assertThrows(IllegalArgumentException.class, () -> TypeSwitch.<String>builder().orElse(null));
+    }
+
+    @Test
+    public void castThenChecksTheTypeFirst() {
+        List<Throwable> logged = new ArrayList<>();
+        PolicyScope.run(Designer.current().withExceptionLoggingConsumer(logged::add), () -> {
+            assertEquals(Integer.valueOf(1), ExceptionBarrier.castThen((Object) "a", String.class, String::length));
+            assertNull(ExceptionBarrier.castThen((Object) 1, String.class, String::length));
+            assertNull(ExceptionBarrier.castThen(null, String.class, String::length));
+            assertEquals(Integer.valueOf(1), ExceptionBarrier.castOkThen((Object) "a", CharSequence.class, CharSequence::length));
+            assertNull(ExceptionBarrier.castOkThen((Object) 1, String.class, String::length));
+            // a wrong type is not an error, only a failing action is
+            assertTrue(logged.isEmpty());
+
+            assertNull(ExceptionBarrier.castThen((Object) "a", String.class, s -> Integer.parseInt(s)));
+            assertNull(ExceptionBarrier.castOkThen((Object) "a", String.class, s -> Integer.parseInt(s)));
+            assertEquals(1, logged.size());
+            assertTrue(logged.get(0) instanceof NumberFormatException);
+        });
+    }
+
+    @Test
+    public void uncheckedCastThenLogsAWrongType() {
+        List<Throwable> logged = new ArrayList<>();
+        PolicyScope.run(Designer.current().withExceptionLoggingConsumer(logged::add), () -> {
+            Object one = 1;
+            assertEquals(Integer.valueOf(1), ExceptionBarrier.<Object, String, Integer>castThen("a", String::length));
+            assertNull(ExceptionBarrier.<Object, String, Integer>castThen(one, String::length));
+            assertNull(ExceptionBarrier.<Object, String, Integer>castThen(null, String::length));
+            assertEquals(1, logged.size());
+            assertTrue(logged.get(0) instanceof ClassCastException);
+
+            assertNull(ExceptionBarrier.<Object, String, Integer>castOkThen(one, String::length));
+            assertEquals(1, logged.size());
+        });
+    }
+
+}